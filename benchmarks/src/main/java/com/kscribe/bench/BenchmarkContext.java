@@ -0,0 +1,34 @@
+package com.kscribe.bench;
+
+import com.kscribe.KscribeApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application without a web server so benchmarks exercise the beans exactly as they are
+ * wired in production. NLP models are picked up from {@code /nlp-models} on the classpath as usual;
+ * without them the NLP benchmarks measure the no-model fallbacks.
+ */
+public final class BenchmarkContext {
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "--kscribe.browser.enabled=false",
+                // Results would otherwise be served from the cache after the first invocation
+                "--kscribe.cache.enabled=false",
+                "--logging.level.root=WARN",
+                "--spring.main.banner-mode=off"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        return new SpringApplicationBuilder(KscribeApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+    }
+}
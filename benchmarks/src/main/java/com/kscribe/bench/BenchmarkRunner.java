@@ -0,0 +1,39 @@
+package com.kscribe.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the benchmarks with the GC profiler (allocation rate per op) and writes a JSON result file,
+ * so runs before and after an upgrade can be diffed. Accepts the usual JMH command line, e.g. a
+ * benchmark regex or {@code -p size=HUGE}; {@code -prof}, {@code -rf} and {@code -rff} override
+ * the defaults.
+ */
+public final class BenchmarkRunner {
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        List<String> argList = Arrays.asList(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(new CommandLineOptions(args));
+        if (!argList.contains("-prof")) {
+            options.addProfiler(GCProfiler.class);
+        }
+        if (!argList.contains("-rf")) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!argList.contains("-rff")) {
+            options.result("target/jmh-result.json");
+        }
+        new Runner(options.build()).run();
+    }
+}
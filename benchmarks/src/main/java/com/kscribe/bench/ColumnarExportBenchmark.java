@@ -0,0 +1,71 @@
+package com.kscribe.bench;
+
+import com.kscribe.columnar.ColumnarReader;
+import com.kscribe.columnar.ColumnarWriter;
+import com.kscribe.model.TestCase;
+import com.kscribe.service.TestCaseGeneratorService;
+import com.kscribe.util.ColumnarExportUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Columnar export of pre-generated test cases, with and without compression, and reading it back. */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColumnarExportBenchmark {
+    @Param({"MEDIUM", "HUGE"})
+    public CorpusGenerator.Size size;
+
+    @Param({"true", "false"})
+    public boolean compress;
+
+    private ColumnarExportUtil columnarExportUtil;
+    private List<TestCase> testCases;
+    private byte[] exported;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        try (ConfigurableApplicationContext context = BenchmarkContext.start()) {
+            columnarExportUtil = context.getBean(ColumnarExportUtil.class);
+            testCases = context.getBean(TestCaseGeneratorService.class)
+                    .generateTestCases(CorpusGenerator.generate(CorpusGenerator.Profile.MIXED, size.count(), CorpusGenerator.DEFAULT_SEED));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(out);
+        exported = out.toByteArray();
+    }
+
+    /** Compare with {@link CsvExportBenchmark#exportToStream()}. */
+    @Benchmark
+    public void exportToStream() throws IOException {
+        write(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void read(Blackhole blackhole) throws IOException {
+        try (ColumnarReader reader = columnarExportUtil.openReader(new ByteArrayInputStream(exported))) {
+            while (reader.hasNext()) {
+                blackhole.consume(reader.next());
+            }
+        }
+    }
+
+    private void write(OutputStream out) throws IOException {
+        try (ColumnarWriter writer = columnarExportUtil.openWriter(out, compress)) {
+            for (TestCase tc : testCases) {
+                writer.write(tc);
+            }
+        }
+    }
+}
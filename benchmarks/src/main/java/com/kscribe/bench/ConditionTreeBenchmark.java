@@ -0,0 +1,80 @@
+package com.kscribe.bench;
+
+import com.kscribe.model.Requirement;
+import com.kscribe.model.TestCase;
+import com.kscribe.nlp.AnnotatedText;
+import com.kscribe.nlp.NlpService;
+import com.kscribe.rules.ConditionParser;
+import com.kscribe.rules.ConditionTree;
+import com.kscribe.service.TestCaseGeneratorService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conditional parsing on deeply chained and nested if/else-if sentences. {@code parse} is the
+ * grammar alone over the annotated tokens; {@code generate} is the whole requirement, branches and
+ * test cases included, and {@code annotate} its NLP share, so branch building is what remains.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConditionTreeBenchmark {
+    /** Number of else-if branches between the leading if and the final else. */
+    @Param({"0", "16", "256"})
+    public int elseIfs;
+
+    /** Conditionals the chain is nested in, as in "if a then if b then …". */
+    @Param({"0", "8"})
+    public int nesting;
+
+    private ConfigurableApplicationContext context;
+    private TestCaseGeneratorService generator;
+    private NlpService nlpService;
+    private Requirement requirement;
+    private AnnotatedText doc;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        generator = context.getBean(TestCaseGeneratorService.class);
+        nlpService = context.getBean(NlpService.class);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < nesting; i++) {
+            sb.append(i == 0 ? "If" : "if").append(" the user opens section ").append(i).append(" then ");
+        }
+        sb.append(nesting == 0 ? "If" : "if").append(" the user enters an invalid email then show an error message");
+        for (int i = 0; i < elseIfs; i++) {
+            sb.append(" else if the user leaves field ").append(i).append(" empty then highlight the required field");
+        }
+        requirement = new Requirement(sb.append(" else redirect to the dashboard.").toString());
+        doc = nlpService.annotate(requirement.getText());
+        if (doc.sentenceCount() != 1) throw new IllegalStateException("Expected one sentence, got " + doc.sentenceCount());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ConditionTree parse() {
+        return ConditionParser.parse(doc, 0);
+    }
+
+    @Benchmark
+    public AnnotatedText annotate() {
+        return nlpService.annotate(requirement.getText());
+    }
+
+    /** Through the public entry point; the benchmark context turns the result cache off. */
+    @Benchmark
+    public List<TestCase> generate() {
+        return generator.generateForRequirement(requirement);
+    }
+}
@@ -0,0 +1,124 @@
+package com.kscribe.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kscribe.model.Requirement;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reproducible synthetic requirement corpora. The same profile, size and seed always yield the
+ * same requirements, so results from different runs and machines can be compared.
+ *
+ * <p>Run {@code main} to write a corpus as a JSON array, e.g. to replay it against a live server:
+ * {@code CorpusGenerator <profile> <count> <seed> <out.json>}.
+ */
+public final class CorpusGenerator {
+    public static final long DEFAULT_SEED = 42L;
+
+    public enum Profile {
+        /** if/else if/else chains with then-clauses. */
+        CONDITIONAL,
+        /** Modal verbs with not/never/no and error expectations. */
+        NEGATION,
+        /** Long sentences joined by and/or/commas/semicolons. */
+        COMPOUND,
+        /** An even mix of the above plus plain statements. */
+        MIXED
+    }
+
+    public enum Size {
+        SMALL(10), MEDIUM(500), HUGE(10_000);
+
+        private final int count;
+
+        Size(int count) {
+            this.count = count;
+        }
+
+        public int count() {
+            return count;
+        }
+    }
+
+    private static final String[] ACTORS = {"the user", "an admin", "a guest", "the customer", "a registered member", "the system"};
+    private static final String[] ACTIONS = {"enters an invalid email", "submits the registration form", "resets the password",
+            "logs in with a locked account", "leaves the password field empty", "uploads a file larger than 10 MB",
+            "requests access to the reports page", "changes the account email", "enters the wrong password three times",
+            "opens the dashboard"};
+    private static final String[] OUTCOMES = {"show an error message", "display a warning", "allow login", "redirect to the dashboard",
+            "send a confirmation email", "lock the account", "deny access", "display a welcome message",
+            "highlight the required field", "log the security event"};
+    private static final String[] MODALS = {"should", "must", "shall", "can", "will"};
+    private static final String[] NEGATIONS = {"not", "never"};
+    private static final String[] JOINERS = {" and ", " or ", ", ", "; "};
+
+    private CorpusGenerator() {
+    }
+
+    public static List<Requirement> generate(Profile profile, int count, long seed) {
+        Random random = new Random(seed);
+        List<Requirement> requirements = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Profile p = profile == Profile.MIXED ? Profile.values()[random.nextInt(Profile.values().length)] : profile;
+            requirements.add(new Requirement(sentence(p, random)));
+        }
+        return requirements;
+    }
+
+    private static String sentence(Profile profile, Random random) {
+        switch (profile) {
+            case CONDITIONAL: {
+                StringBuilder sb = new StringBuilder("If ").append(pick(ACTORS, random)).append(' ').append(pick(ACTIONS, random))
+                        .append(", then ").append(pick(OUTCOMES, random));
+                int elseIfs = random.nextInt(4);
+                for (int i = 0; i < elseIfs; i++) {
+                    sb.append("; else if ").append(pick(ACTORS, random)).append(' ').append(pick(ACTIONS, random))
+                            .append(" then ").append(pick(OUTCOMES, random));
+                }
+                return sb.append("; else ").append(pick(OUTCOMES, random)).append('.').toString();
+            }
+            case NEGATION:
+                return capitalize(pick(ACTORS, random)) + ' ' + pick(MODALS, random) + ' ' + pick(NEGATIONS, random) + ' '
+                        + "be able to " + base(pick(ACTIONS, random)) + " without an error. The system must not "
+                        + pick(OUTCOMES, random) + '.';
+            case COMPOUND: {
+                StringBuilder sb = new StringBuilder(capitalize(pick(ACTORS, random))).append(' ').append(pick(MODALS, random))
+                        .append(' ').append(base(pick(ACTIONS, random)));
+                int clauses = 3 + random.nextInt(6);
+                for (int i = 0; i < clauses; i++) {
+                    sb.append(pick(JOINERS, random)).append(pick(OUTCOMES, random));
+                }
+                return sb.append('.').toString();
+            }
+            default:
+                return capitalize(pick(ACTORS, random)) + ' ' + pick(MODALS, random) + ' ' + pick(OUTCOMES, random) + '.';
+        }
+    }
+
+    // "enters an invalid email" -> "enter an invalid email"
+    private static String base(String action) {
+        int space = action.indexOf(' ');
+        return action.charAt(space - 1) == 's' ? action.substring(0, space - 1) + action.substring(space) : action;
+    }
+
+    private static String capitalize(String s) {
+        return Character.toUpperCase(s.charAt(0)) + s.substring(1);
+    }
+
+    private static String pick(String[] options, Random random) {
+        return options[random.nextInt(options.length)];
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("usage: CorpusGenerator <conditional|negation|compound|mixed> <count> <seed> <out.json>");
+            System.exit(2);
+        }
+        List<Requirement> corpus = generate(Profile.valueOf(args[0].toUpperCase()), Integer.parseInt(args[1]), Long.parseLong(args[2]));
+        new ObjectMapper().writeValue(Path.of(args[3]).toFile(), corpus);
+    }
+}
@@ -0,0 +1,52 @@
+package com.kscribe.bench;
+
+import com.kscribe.model.TestCase;
+import com.kscribe.service.TestCaseGeneratorService;
+import com.kscribe.util.CsvExportUtil;
+import com.opencsv.CSVWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** CSV export of pre-generated test cases, buffered into a byte array and streamed. */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvExportBenchmark {
+    @Param({"MEDIUM", "HUGE"})
+    public CorpusGenerator.Size size;
+
+    private CsvExportUtil csvExportUtil;
+    private List<TestCase> testCases;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        try (ConfigurableApplicationContext context = BenchmarkContext.start()) {
+            csvExportUtil = context.getBean(CsvExportUtil.class);
+            testCases = context.getBean(TestCaseGeneratorService.class)
+                    .generateTestCases(CorpusGenerator.generate(CorpusGenerator.Profile.MIXED, size.count(), CorpusGenerator.DEFAULT_SEED));
+        }
+    }
+
+    @Benchmark
+    public byte[] exportToBytes() {
+        return csvExportUtil.exportTestCasesToCsv(testCases);
+    }
+
+    /** The path used by the streaming endpoints, minus the network. */
+    @Benchmark
+    public void exportToStream() throws IOException {
+        try (CSVWriter csvWriter = csvExportUtil.openCsvWriter(OutputStream.nullOutputStream())) {
+            for (TestCase tc : testCases) {
+                csvExportUtil.writeTestCase(csvWriter, tc);
+            }
+        }
+    }
+}
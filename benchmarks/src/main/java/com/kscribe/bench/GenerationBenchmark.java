@@ -0,0 +1,50 @@
+package com.kscribe.bench;
+
+import com.kscribe.model.Requirement;
+import com.kscribe.model.TestCase;
+import com.kscribe.service.TestCaseGeneratorService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** End-to-end {@link TestCaseGeneratorService#generateTestCases(List)} over synthetic corpora. */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class GenerationBenchmark {
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    public CorpusGenerator.Size size;
+
+    @Param({"CONDITIONAL", "NEGATION", "COMPOUND"})
+    public CorpusGenerator.Profile profile;
+
+    /** Whether batches at or above the parallel threshold are split across threads. */
+    @Param({"true"})
+    public boolean parallel;
+
+    private ConfigurableApplicationContext context;
+    private TestCaseGeneratorService generator;
+    private List<Requirement> corpus;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("kscribe.generator.parallel.enabled=" + parallel);
+        generator = context.getBean(TestCaseGeneratorService.class);
+        corpus = CorpusGenerator.generate(profile, size.count(), CorpusGenerator.DEFAULT_SEED);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<TestCase> generateTestCases() {
+        return generator.generateTestCases(corpus);
+    }
+}
@@ -0,0 +1,83 @@
+package com.kscribe.bench;
+
+import com.kscribe.model.Requirement;
+import com.kscribe.nlp.AnnotatedText;
+import com.kscribe.nlp.EntityGazetteer;
+import com.kscribe.nlp.NlpService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/** The individual {@link NlpService} calls on a short paragraph of generated requirements. */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NlpBenchmark {
+    @Param({"CONDITIONAL", "NEGATION", "COMPOUND"})
+    public CorpusGenerator.Profile profile;
+
+    /** Requirements joined into the benchmarked paragraph. */
+    @Param({"8"})
+    public int sentences;
+
+    private ConfigurableApplicationContext context;
+    private NlpService nlpService;
+    private EntityGazetteer gazetteer;
+    private String text;
+    private String[] tokens;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        nlpService = context.getBean(NlpService.class);
+        List<Requirement> corpus = CorpusGenerator.generate(profile, sentences, CorpusGenerator.DEFAULT_SEED);
+        text = corpus.stream().map(Requirement::getText).collect(Collectors.joining(" "));
+        gazetteer = context.getBean(EntityGazetteer.class);
+        tokens = nlpService.tokenize(text).toArray(new String[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<String> tokenize() {
+        return nlpService.tokenize(text);
+    }
+
+    @Benchmark
+    public List<String> posTag() {
+        return nlpService.posTag(text);
+    }
+
+    @Benchmark
+    public List<String> lemmatize() {
+        return nlpService.lemmatize(text);
+    }
+
+    @Benchmark
+    public List<String> sentences() {
+        return nlpService.sentences(text);
+    }
+
+    /** Dictionary entity lookup over the tokens {@link #tokenize()} produces; compare with it. */
+    @Benchmark
+    public int entities() {
+        int[] mentions = new int[1];
+        gazetteer.find(tokens, 0, tokens.length, (start, end, entity) -> mentions[0]++);
+        return mentions[0];
+    }
+
+    /** The single pass the generator actually uses. */
+    @Benchmark
+    public AnnotatedText annotate() {
+        return nlpService.annotate(text);
+    }
+}
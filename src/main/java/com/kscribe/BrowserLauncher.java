@@ -1,5 +1,6 @@
 package com.kscribe;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
@@ -8,6 +9,7 @@ import java.awt.Desktop;
 import java.net.URI;
 
 @Component
+@ConditionalOnProperty(name = "kscribe.browser.enabled", havingValue = "true", matchIfMissing = true)
 public class BrowserLauncher {
     @EventListener(ApplicationReadyEvent.class)
     public void openBrowser() {
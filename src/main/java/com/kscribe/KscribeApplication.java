@@ -1,11 +1,19 @@
 package com.kscribe;
 
+import com.kscribe.ingest.IngestCommand;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+
+import java.util.Arrays;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class KscribeApplication {
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("ingest")) {
+            System.exit(IngestCommand.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
         SpringApplication.run(KscribeApplication.class, args);
     }
 } 
\ No newline at end of file
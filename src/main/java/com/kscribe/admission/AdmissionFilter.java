@@ -0,0 +1,81 @@
+package com.kscribe.admission;
+
+import com.kscribe.nlp.NlpService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Admission control for generation requests. While the NLP models are loading, requests get
+ * {@code 503} instead of waiting for them. Otherwise each request's token count is estimated from
+ * its body size and checked against {@link AdmissionLimiter}; a request that does not fit gets
+ * {@code 429} at once. Both responses carry {@code Retry-After}. Jobs have their own queue and
+ * are not limited here.
+ */
+@Component
+@RequiredArgsConstructor
+public class AdmissionFilter extends OncePerRequestFilter {
+    private final AdmissionProperties properties;
+    private final AdmissionLimiter limiter;
+    private final NlpService nlpService;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!properties.isEnabled()) return true;
+        String method = request.getMethod();
+        if (!"POST".equals(method) && !"PUT".equals(method)) return true;
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith("/api/requirements/") && !path.startsWith("/api/documents/") && !path.equals("/api/ingest");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!nlpService.isReady()) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 5, "NLP models are still loading");
+            return;
+        }
+        long weight = weigh(request);
+        if (!limiter.tryAcquire(weight)) {
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, 1,
+                    "Too much work in flight to admit a request of about " + weight + " tokens");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limiter.release(weight);
+        }
+    }
+
+    // Streaming endpoints hold one window at a time; buffered ones hold their whole body, and one of unknown size may use the whole budget
+    private long weigh(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (path.endsWith("/stream") || path.endsWith("/to-csv") || path.endsWith("/to-columnar")
+                || path.endsWith("/api/ingest")) {
+            return properties.getStreamingRequestTokens();
+        }
+        long length = request.getContentLengthLong();
+        if (length < 0) return limiter.getMaxTokens();
+        return Math.max(1, length / Math.max(1, properties.getBytesPerToken()));
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, int retryAfterSeconds, String message)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Integer.toString(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(message);
+    }
+}
@@ -0,0 +1,65 @@
+package com.kscribe.admission;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits generation work in flight by request count and by estimated token count. A request is
+ * admitted when both fit, or when nothing else is running, so a request larger than the whole
+ * budget still runs, just not alongside others. Nothing ever waits: a request that does not fit
+ * is rejected straight away.
+ */
+@Component
+public class AdmissionLimiter implements MeterBinder {
+    private final int maxRequests;
+    private final long maxTokens;
+    private final LongAdder rejected = new LongAdder();
+    private int requests;
+    private long tokens;
+
+    public AdmissionLimiter(AdmissionProperties properties) {
+        this.maxRequests = properties.getMaxConcurrentRequests() > 0
+                ? properties.getMaxConcurrentRequests() : 4 * Runtime.getRuntime().availableProcessors();
+        this.maxTokens = properties.getMaxInFlightTokens();
+    }
+
+    /** Admits a request of the given weight, or returns false; every admission must be released. */
+    public synchronized boolean tryAcquire(long weight) {
+        if (requests > 0 && (requests >= maxRequests || tokens + weight > maxTokens)) {
+            rejected.increment();
+            return false;
+        }
+        requests++;
+        tokens += weight;
+        return true;
+    }
+
+    public synchronized void release(long weight) {
+        requests--;
+        tokens -= weight;
+    }
+
+    public synchronized int inFlightRequests() {
+        return requests;
+    }
+
+    public synchronized long inFlightTokens() {
+        return tokens;
+    }
+
+    public long getMaxTokens() {
+        return maxTokens;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("kscribe.admission.requests", this, AdmissionLimiter::inFlightRequests).register(registry);
+        Gauge.builder("kscribe.admission.tokens", this, AdmissionLimiter::inFlightTokens).register(registry);
+        FunctionCounter.builder("kscribe.admission.rejected", rejected, LongAdder::sum).register(registry);
+    }
+}
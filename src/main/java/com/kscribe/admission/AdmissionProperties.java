@@ -0,0 +1,21 @@
+package com.kscribe.admission;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "kscribe.admission")
+public class AdmissionProperties {
+    private boolean enabled = true;
+    /** Generation requests running at once; 0 means four per CPU. */
+    private int maxConcurrentRequests = 0;
+    /** Estimated tokens of all running generation requests together. */
+    private long maxInFlightTokens = 1_000_000;
+    /** Request body bytes counted as one token when estimating a request's size. */
+    private int bytesPerToken = 4;
+    /**
+     * Tokens charged to a streaming request (NDJSON, CSV, ingestion). These hold one window of
+     * requirements at a time rather than their whole input.
+     */
+    private long streamingRequestTokens = 50_000;
+}
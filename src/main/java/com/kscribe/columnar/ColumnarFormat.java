@@ -0,0 +1,54 @@
+package com.kscribe.columnar;
+
+/**
+ * Layout of the columnar test case format ({@code .kstc}), shared by {@link ColumnarWriter} and
+ * {@link ColumnarReader}.
+ *
+ * <pre>
+ * file   := "KSTC" version:u8 flags:u8 frame* end
+ * frame  := rawLength:varint storedLength:varint bytes[storedLength]   (deflated when flags has DEFLATE)
+ * end    := 0:varint
+ * block  := rows:varint blockFlags:varint newStrings:varint string* (columnLength:varint column){COLUMNS}
+ * string := length:varint utf8[length]
+ * </pre>
+ *
+ * Strings are referenced through a dictionary shared by the whole file: each block appends the
+ * strings it introduces, and a block flagged {@link #BLOCK_RESET_DICTIONARY} starts it afresh.
+ * A reference is the dictionary index plus one, with 0 meaning {@code null}. Titles, steps,
+ * preconditions and expected outputs are stored as a prefix reference and a body reference, so
+ * a body shared with the description is stored once. List columns keep one count per row (size
+ * plus one, 0 for {@code null}) in a separate column from their values. IDs are stored inline.
+ * A block is at most {@link #DEFAULT_MAX_BLOCK_SIZE} bytes uncompressed unless writer and reader
+ * agree on another limit.
+ */
+public final class ColumnarFormat {
+    public static final String MEDIA_TYPE = "application/vnd.kscribe.testcases";
+    public static final String FILE_EXTENSION = ".kstc";
+    public static final int DEFAULT_MAX_BLOCK_SIZE = 64 * 1024 * 1024;
+
+    static final byte[] MAGIC = {'K', 'S', 'T', 'C'};
+    static final int VERSION = 1;
+    static final int DEFLATE = 1;
+    static final int BLOCK_RESET_DICTIONARY = 1;
+
+    // Column order within a block
+    static final int ID = 0;
+    static final int TITLE = 1;
+    static final int DESCRIPTION = 2;
+    static final int PRECONDITION_COUNTS = 3;
+    static final int PRECONDITIONS = 4;
+    static final int STEP_COUNTS = 5;
+    static final int STEPS = 6;
+    static final int EXPECTED_OUTPUT = 7;
+    static final int SEVERITY = 8;
+    static final int TAG_COUNTS = 9;
+    static final int TAGS = 10;
+    static final int SOURCE_COUNTS = 11;
+    static final int SOURCES = 12;
+    static final int MERGED_COUNTS = 13;
+    static final int MERGED_IDS = 14;
+    static final int COLUMNS = 15;
+
+    private ColumnarFormat() {
+    }
+}
@@ -0,0 +1,20 @@
+package com.kscribe.columnar;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties(prefix = "kscribe.columnar")
+public class ColumnarProperties {
+    /** Test cases per block; a writer holds one block in memory. */
+    private int blockRows = 4096;
+    /** Deflate each block unless a request asks otherwise. */
+    private boolean compression = true;
+    /** Deflater level, 1 (fastest) to 9 (smallest). */
+    private int compressionLevel = 1;
+    /** Distinct strings kept in the shared dictionary before it is started afresh at the next block. */
+    private int maxDictionarySize = 1_000_000;
+    /** Largest uncompressed block written or accepted on read; a block is written early at half of it. */
+    private DataSize maxBlockSize = DataSize.ofBytes(ColumnarFormat.DEFAULT_MAX_BLOCK_SIZE);
+}
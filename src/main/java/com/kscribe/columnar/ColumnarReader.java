@@ -0,0 +1,272 @@
+package com.kscribe.columnar;
+
+import com.kscribe.model.Severity;
+import com.kscribe.model.TestCase;
+import com.kscribe.model.Text;
+import com.kscribe.model.TextList;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static com.kscribe.columnar.ColumnarFormat.*;
+
+/**
+ * Reads test cases written by {@link ColumnarWriter}, one block at a time. Strings come from the
+ * file's dictionary, so repeated titles, prefixes and tags are shared instances in the test cases
+ * returned. Every length, position and reference read is checked against the block it belongs to,
+ * and frames larger than the block size limit are refused before anything is allocated, so read
+ * errors and corrupt input both surface from {@link #hasNext()} and {@link #next()} as
+ * {@link UncheckedIOException}s.
+ */
+public final class ColumnarReader implements Iterator<TestCase>, Closeable {
+    private final InputStream in;
+    private final int maxBlockSize;
+    private final Inflater inflater;
+    private final List<String> dictionary = new ArrayList<>();
+    private final int[] positions = new int[COLUMNS];
+    private final int[] limits = new int[COLUMNS];
+    private byte[] stored = new byte[0];
+    private byte[] block = new byte[0];
+    private int remaining;
+    private boolean finished;
+
+    /** Reads the file header; fails if the stream is not in the columnar format. */
+    public ColumnarReader(InputStream in) throws IOException {
+        this(in, DEFAULT_MAX_BLOCK_SIZE);
+    }
+
+    /** @param maxBlockSize largest uncompressed block accepted, in bytes */
+    public ColumnarReader(InputStream in, int maxBlockSize) throws IOException {
+        this.in = in;
+        this.maxBlockSize = maxBlockSize;
+        byte[] magic = in.readNBytes(MAGIC.length);
+        if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not a KScribe columnar file");
+        int version = in.read();
+        if (version != VERSION) throw new IOException("Unsupported columnar format version " + version);
+        int flags = in.read();
+        if (flags < 0) throw new EOFException("Truncated columnar file");
+        this.inflater = (flags & DEFLATE) != 0 ? new Inflater() : null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (remaining == 0 && !finished) {
+                readBlock();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return remaining > 0;
+    }
+
+    @Override
+    public TestCase next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        remaining--;
+        try {
+            return readRow();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (inflater != null) inflater.end();
+        in.close();
+    }
+
+    private TestCase readRow() throws IOException {
+        TestCase tc = new TestCase();
+        tc.setId(readNullableString(ID));
+        tc.setTitle(readText(TITLE));
+        tc.setDescription(readRef(DESCRIPTION));
+        tc.setPreconditions(readTexts(PRECONDITION_COUNTS, PRECONDITIONS));
+        tc.setSteps(readTexts(STEP_COUNTS, STEPS));
+        tc.setExpectedOutput(readText(EXPECTED_OUTPUT));
+        String severity = readRef(SEVERITY);
+        if (severity != null) {
+            tc.setSeverity(Severity.ofLabel(severity));
+            if (tc.getSeverity() == null) throw new IOException("Corrupt columnar block: unknown severity " + severity);
+        }
+        int tagCount = readCount(TAG_COUNTS, TAGS);
+        if (tagCount >= 0) {
+            List<String> tags = new ArrayList<>(tagCount);
+            for (int i = 0; i < tagCount; i++) {
+                tags.add(readRef(TAGS));
+            }
+            tc.setTags(tags);
+        }
+        int sourceCount = readCount(SOURCE_COUNTS, SOURCES);
+        if (sourceCount >= 0) {
+            List<Integer> sources = new ArrayList<>(sourceCount);
+            for (int i = 0; i < sourceCount; i++) {
+                sources.add(readVarint(SOURCES));
+            }
+            tc.setSourceRequirements(sources);
+        }
+        int mergedCount = readCount(MERGED_COUNTS, MERGED_IDS);
+        if (mergedCount >= 0) {
+            List<String> merged = new ArrayList<>(mergedCount);
+            for (int i = 0; i < mergedCount; i++) {
+                merged.add(readNullableString(MERGED_IDS));
+            }
+            tc.setMergedIds(merged);
+        }
+        return tc;
+    }
+
+    private void readBlock() throws IOException {
+        int rawLength = readVarint(in);
+        if (rawLength == 0) {
+            finished = true;
+            return;
+        }
+        int storedLength = readVarint(in);
+        // Deflate never grows a block by more than this, so anything larger is corrupt
+        if (rawLength > maxBlockSize || storedLength > rawLength + rawLength / 1024 + 64
+                || inflater == null && storedLength != rawLength) {
+            throw new IOException("Columnar block of " + rawLength + " bytes exceeds the limit of " + maxBlockSize + " or is corrupt");
+        }
+        if (stored.length < storedLength) stored = new byte[storedLength];
+        if (in.readNBytes(stored, 0, storedLength) != storedLength) throw new EOFException("Truncated columnar file");
+        if (block.length < rawLength) block = new byte[rawLength];
+        if (inflater == null) {
+            System.arraycopy(stored, 0, block, 0, rawLength);
+        } else {
+            inflater.reset();
+            inflater.setInput(stored, 0, storedLength);
+            try {
+                if (inflater.inflate(block, 0, rawLength) != rawLength || !inflater.finished()) {
+                    throw new IOException("Corrupt columnar block");
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt columnar block", e);
+            }
+        }
+        // Block header, new dictionary strings, then the columns back to back
+        int[] pos = {0};
+        int rows = readVarint(block, pos, rawLength);
+        int flags = readVarint(block, pos, rawLength);
+        if ((flags & BLOCK_RESET_DICTIONARY) != 0) dictionary.clear();
+        int newStrings = readVarint(block, pos, rawLength);
+        for (int i = 0; i < newStrings; i++) {
+            int length = readLength(block, pos, rawLength);
+            dictionary.add(new String(block, pos[0], length, StandardCharsets.UTF_8));
+            pos[0] += length;
+        }
+        for (int c = 0; c < COLUMNS; c++) {
+            int length = readLength(block, pos, rawLength);
+            positions[c] = pos[0];
+            pos[0] += length;
+            limits[c] = pos[0];
+        }
+        if (pos[0] != rawLength) throw new IOException("Corrupt columnar block");
+        remaining = rows;
+    }
+
+    private int readVarint(int column) throws IOException {
+        int[] pos = {positions[column]};
+        int value = readVarint(block, pos, limits[column]);
+        positions[column] = pos[0];
+        return value;
+    }
+
+    // List size from a count column, -1 for null; every element takes at least a byte of its value column
+    private int readCount(int countColumn, int valueColumn) throws IOException {
+        int count = readVarint(countColumn) - 1;
+        if (count > limits[valueColumn] - positions[valueColumn]) throw new IOException("Corrupt columnar block");
+        return count;
+    }
+
+    private String readRef(int column) throws IOException {
+        int ref = readVarint(column);
+        if (ref > dictionary.size()) throw new IOException("Corrupt columnar block: string " + ref + " is not in the dictionary");
+        return ref == 0 ? null : dictionary.get(ref - 1);
+    }
+
+    private Text readText(int column) throws IOException {
+        String prefix = readRef(column);
+        if (prefix == null) return null;
+        String body = readRef(column);
+        if (body == null) throw new IOException("Corrupt columnar block: text without a body");
+        return Text.of(prefix, body);
+    }
+
+    private List<String> readTexts(int countColumn, int valueColumn) throws IOException {
+        int count = readCount(countColumn, valueColumn);
+        if (count < 0) return null;
+        List<Text> texts = new ArrayList<>(count);
+        boolean hasNull = false;
+        for (int i = 0; i < count; i++) {
+            Text text = readText(valueColumn);
+            hasNull |= text == null;
+            texts.add(text);
+        }
+        if (!hasNull) return TextList.of(texts);
+        // TextList cannot hold null elements, so a list with any keeps them as plain strings
+        List<String> strings = new ArrayList<>(count);
+        for (Text text : texts) {
+            strings.add(text == null ? null : text.toString());
+        }
+        return strings;
+    }
+
+    private String readNullableString(int column) throws IOException {
+        int[] pos = {positions[column]};
+        int length = readVarint(block, pos, limits[column]) - 1;
+        if (length < 0) {
+            positions[column] = pos[0];
+            return null;
+        }
+        if (length > limits[column] - pos[0]) throw new IOException("Corrupt columnar block");
+        positions[column] = pos[0] + length;
+        return new String(block, pos[0], length, StandardCharsets.UTF_8);
+    }
+
+    // A byte count that must fit in what is left of the block
+    private static int readLength(byte[] bytes, int[] pos, int limit) throws IOException {
+        int length = readVarint(bytes, pos, limit);
+        if (length > limit - pos[0]) throw new IOException("Corrupt columnar block");
+        return length;
+    }
+
+    private static int readVarint(byte[] bytes, int[] pos, int limit) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35 && pos[0] < limit; shift += 7) {
+            byte b = bytes[pos[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                if (value < 0) break;
+                return value;
+            }
+        }
+        throw new IOException("Corrupt columnar block");
+    }
+
+    private static int readVarint(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new EOFException("Truncated columnar file");
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) break;
+                return value;
+            }
+        }
+        throw new IOException("Corrupt columnar file");
+    }
+}
@@ -0,0 +1,211 @@
+package com.kscribe.columnar;
+
+import com.kscribe.model.TestCase;
+import com.kscribe.model.Text;
+import com.kscribe.model.TextList;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import static com.kscribe.columnar.ColumnarFormat.*;
+
+/**
+ * Writes test cases in the {@link ColumnarFormat}. Rows are buffered one block at a time, each
+ * column in its own buffer, so memory stays at one block plus the string dictionary however many
+ * test cases are written. A block is written early once it reaches half the block size limit, and
+ * a test case too large to fit is refused, so every block written can be read back.
+ * {@link #close()} writes the last block and closes the stream.
+ */
+public final class ColumnarWriter implements Closeable {
+    private final OutputStream out;
+    private final int blockRows;
+    private final int maxBlockSize;
+    private final int maxDictionarySize;
+    private final Deflater deflater;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final ColumnBuffer strings = new ColumnBuffer(8192);
+    private final ColumnBuffer[] columns = new ColumnBuffer[COLUMNS];
+    private final ColumnBuffer block = new ColumnBuffer(8192);
+    private final ColumnBuffer frame = new ColumnBuffer(16);
+    private byte[] deflated = new byte[0];
+    private int newStrings;
+    private int rows;
+    private boolean resetDictionary;
+    private boolean closed;
+    private boolean failed;
+
+    /**
+     * @param blockRows         rows per block
+     * @param compressionLevel  {@link Deflater} level for each block, or -1 to store blocks uncompressed
+     * @param maxDictionarySize strings the dictionary may hold before the next block starts a new one
+     * @param maxBlockSize      largest uncompressed block in bytes; readers must accept at least this
+     */
+    public ColumnarWriter(OutputStream out, int blockRows, int compressionLevel, int maxDictionarySize,
+                          int maxBlockSize) throws IOException {
+        this.out = out;
+        this.blockRows = Math.max(1, blockRows);
+        this.maxBlockSize = maxBlockSize;
+        this.maxDictionarySize = Math.max(1, maxDictionarySize);
+        this.deflater = compressionLevel < 0 ? null : new Deflater(Math.min(compressionLevel, Deflater.BEST_COMPRESSION));
+        for (int i = 0; i < COLUMNS; i++) {
+            columns[i] = new ColumnBuffer(1024);
+        }
+        out.write(MAGIC);
+        out.write(VERSION);
+        out.write(deflater == null ? 0 : DEFLATE);
+    }
+
+    public void write(TestCase tc) throws IOException {
+        if (closed) throw new IOException("Writer is closed");
+        if (failed) throw new IOException("Writer failed on an earlier block");
+        if (rows == 0 && dictionary.size() > maxDictionarySize) {
+            dictionary.clear();
+            resetDictionary = true;
+        }
+        columns[ID].writeNullableString(tc.getId());
+        writeText(columns[TITLE], tc.titleText());
+        writeRef(columns[DESCRIPTION], tc.getDescription());
+        writeTexts(columns[PRECONDITION_COUNTS], columns[PRECONDITIONS], tc.getPreconditions());
+        writeTexts(columns[STEP_COUNTS], columns[STEPS], tc.getSteps());
+        writeText(columns[EXPECTED_OUTPUT], tc.expectedOutputText());
+        writeRef(columns[SEVERITY], tc.getSeverity() == null ? null : tc.getSeverity().getLabel());
+        List<String> tags = tc.getTags();
+        columns[TAG_COUNTS].writeVarint(tags == null ? 0 : tags.size() + 1);
+        if (tags != null) {
+            for (String tag : tags) {
+                writeRef(columns[TAGS], tag);
+            }
+        }
+        List<Integer> sources = tc.getSourceRequirements();
+        columns[SOURCE_COUNTS].writeVarint(sources == null ? 0 : sources.size() + 1);
+        if (sources != null) {
+            for (Integer source : sources) {
+                columns[SOURCES].writeVarint(source);
+            }
+        }
+        List<String> merged = tc.getMergedIds();
+        columns[MERGED_COUNTS].writeVarint(merged == null ? 0 : merged.size() + 1);
+        if (merged != null) {
+            for (String id : merged) {
+                columns[MERGED_IDS].writeNullableString(id);
+            }
+        }
+        if (++rows == blockRows || bufferedSize() >= maxBlockSize / 2) {
+            try {
+                writeBlock();
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            // After a failed block the file is left without its end marker, so readers see it as truncated
+            if (failed) return;
+            if (rows > 0) writeBlock();
+            frame.reset();
+            frame.writeVarint(0);
+            frame.writeTo(out);
+            out.flush();
+        } finally {
+            if (deflater != null) deflater.end();
+            out.close();
+        }
+    }
+
+    private void writeRef(ColumnBuffer column, String s) {
+        if (s == null) {
+            column.writeVarint(0);
+            return;
+        }
+        Integer index = dictionary.get(s);
+        if (index == null) {
+            index = dictionary.size();
+            dictionary.put(s, index);
+            strings.writeString(s);
+            newStrings++;
+        }
+        column.writeVarint(index + 1);
+    }
+
+    private void writeText(ColumnBuffer column, Text text) {
+        if (text == null) {
+            column.writeVarint(0);
+            return;
+        }
+        writeRef(column, text.getPrefix());
+        writeRef(column, text.getBody());
+    }
+
+    private void writeTexts(ColumnBuffer counts, ColumnBuffer values, List<String> texts) {
+        counts.writeVarint(texts == null ? 0 : texts.size() + 1);
+        if (texts == null) return;
+        // Generated lists keep their prefixes apart; others are stored as bodies without a prefix
+        TextList textList = texts instanceof TextList ? (TextList) texts : null;
+        for (int i = 0; i < texts.size(); i++) {
+            writeText(values, textList != null ? textList.text(i) : Text.of(texts.get(i)));
+        }
+    }
+
+    // Block content so far, less the few bytes of block and column headers
+    private long bufferedSize() {
+        long size = strings.size();
+        for (ColumnBuffer column : columns) {
+            size += column.size();
+        }
+        return size;
+    }
+
+    private void writeBlock() throws IOException {
+        block.reset();
+        block.writeVarint(rows);
+        block.writeVarint(resetDictionary ? BLOCK_RESET_DICTIONARY : 0);
+        block.writeVarint(newStrings);
+        block.write(strings);
+        for (ColumnBuffer column : columns) {
+            block.writeVarint(column.size());
+            block.write(column);
+            column.reset();
+        }
+        strings.reset();
+        newStrings = 0;
+        rows = 0;
+        resetDictionary = false;
+        if (block.size() > maxBlockSize) {
+            throw new IOException("Columnar block of " + block.size() + " bytes exceeds the limit of " + maxBlockSize
+                    + "; a test case is too large for kscribe.columnar.max-block-size");
+        }
+
+        frame.reset();
+        frame.writeVarint(block.size());
+        if (deflater == null) {
+            frame.writeVarint(block.size());
+            frame.writeTo(out);
+            block.writeTo(out);
+            return;
+        }
+        deflater.reset();
+        deflater.setInput(block.array(), 0, block.size());
+        deflater.finish();
+        int length = 0;
+        if (deflated.length < block.size() / 2 + 64) deflated = new byte[block.size() / 2 + 64];
+        while (!deflater.finished()) {
+            if (length == deflated.length) deflated = Arrays.copyOf(deflated, deflated.length * 2);
+            length += deflater.deflate(deflated, length, deflated.length - length);
+        }
+        frame.writeVarint(length);
+        frame.writeTo(out);
+        out.write(deflated, 0, length);
+    }
+}
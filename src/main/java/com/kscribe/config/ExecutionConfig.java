@@ -0,0 +1,40 @@
+package com.kscribe.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+public class ExecutionConfig {
+    private static final Logger log = LoggerFactory.getLogger(ExecutionConfig.class);
+
+    // Dedicated pool for batch generation so large batches don't starve the common pool
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService generationExecutor(ExecutionProperties properties,
+                                              @Value("${kscribe.generator.parallel.parallelism:0}") int parallelism) {
+        if (properties.getMode() == ExecutionProperties.Mode.VIRTUAL) {
+            Optional<ExecutorService> virtual = VirtualThreads.newThreadPerTaskExecutor("kscribe-generate-");
+            if (virtual.isPresent()) return virtual.get();
+            log.warn("kscribe.execution.mode=virtual needs Java 21 or later; running on {}, using platform threads",
+                    System.getProperty("java.version"));
+        }
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(threads);
+    }
+
+    // Tomcat runs each request on its own virtual thread instead of its worker pool
+    @Bean
+    @ConditionalOnProperty(name = "kscribe.execution.mode", havingValue = "virtual")
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadRequests() {
+        return handler -> VirtualThreads.newThreadPerTaskExecutor("kscribe-request-").ifPresent(handler::setExecutor);
+    }
+}
@@ -0,0 +1,19 @@
+package com.kscribe.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "kscribe.execution")
+public class ExecutionProperties {
+    /**
+     * Threads that handle requests and run parallel generation. {@code VIRTUAL} needs Java 21 or
+     * later and falls back to {@code PLATFORM} on older runtimes.
+     */
+    private Mode mode = Mode.PLATFORM;
+
+    public enum Mode {
+        PLATFORM,
+        VIRTUAL
+    }
+}
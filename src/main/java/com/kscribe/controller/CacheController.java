@@ -0,0 +1,27 @@
+package com.kscribe.controller;
+
+import com.kscribe.service.TestCaseCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+public class CacheController {
+    private final TestCaseCache testCaseCache;
+
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        return testCaseCache.stats();
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> clear() {
+        testCaseCache.clear();
+        return ResponseEntity.noContent().build();
+    }
+}
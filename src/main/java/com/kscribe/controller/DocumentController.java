@@ -0,0 +1,49 @@
+package com.kscribe.controller;
+
+import com.kscribe.model.DocumentDelta;
+import com.kscribe.model.DocumentView;
+import com.kscribe.model.Requirement;
+import com.kscribe.service.DocumentService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Diff-aware generation for requirement documents that are edited and re-posted: each PUT stores
+ * the new version and returns only the test cases that were added, changed or removed.
+ */
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/documents")
+@RequiredArgsConstructor
+public class DocumentController {
+    private final DocumentService documentService;
+
+    @PutMapping("/{id}")
+    public DocumentDelta update(@PathVariable String id, @RequestBody Requirement document) {
+        return documentService.update(id, document.getText());
+    }
+
+    /** All test cases of the stored version, in document order. */
+    @GetMapping("/{id}")
+    public DocumentView find(@PathVariable String id) {
+        return documentService.find(id).orElseThrow(() -> notFound(id));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable String id) {
+        if (!documentService.delete(id)) throw notFound(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> invalidId(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    private static ResponseStatusException notFound(String id) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown document " + id);
+    }
+}
@@ -0,0 +1,60 @@
+package com.kscribe.controller;
+
+import com.kscribe.columnar.ColumnarFormat;
+import com.kscribe.ingest.IngestService;
+import com.kscribe.ingest.InputFormat;
+import com.kscribe.ingest.OutputFormat;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Locale;
+
+/**
+ * Bulk ingestion of plain-text or Markdown requirement exports. The body is segmented into
+ * sentences as it is read and the test cases are streamed back as CSV or NDJSON.
+ */
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/ingest")
+@RequiredArgsConstructor
+public class IngestController {
+    private static final String TEXT_MARKDOWN = "text/markdown";
+
+    private final IngestService ingestService;
+
+    @PostMapping(consumes = {MediaType.TEXT_PLAIN_VALUE, TEXT_MARKDOWN, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public void ingest(@RequestParam(required = false) String format,
+                       @RequestParam(defaultValue = "csv") String output,
+                       HttpServletRequest request,
+                       HttpServletResponse response) throws IOException {
+        InputFormat inputFormat = format != null ? parse(InputFormat.class, format)
+                : request.getContentType() != null && request.getContentType().startsWith(TEXT_MARKDOWN) ? InputFormat.MARKDOWN : InputFormat.TEXT;
+        OutputFormat outputFormat = parse(OutputFormat.class, output);
+        if (outputFormat == OutputFormat.CSV) {
+            response.setContentType("text/csv;charset=UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=kscribe_testcases.csv");
+        } else if (outputFormat == OutputFormat.COLUMNAR) {
+            response.setContentType(ColumnarFormat.MEDIA_TYPE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=kscribe_testcases" + ColumnarFormat.FILE_EXTENSION);
+        } else {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        }
+        ingestService.ingest(Channels.newChannel(request.getInputStream()), inputFormat, response.getOutputStream(), outputFormat);
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown format: " + value);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.kscribe.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.kscribe.columnar.ColumnarFormat;
+import com.kscribe.columnar.ColumnarWriter;
+import com.kscribe.model.JobResultPage;
+import com.kscribe.model.JobStatus;
+import com.kscribe.model.JobView;
+import com.kscribe.model.TestCase;
+import com.kscribe.model.TestCaseResponse;
+import com.kscribe.service.JobService;
+import com.kscribe.util.ColumnarExportUtil;
+import com.kscribe.util.CsvExportUtil;
+import com.kscribe.util.NdjsonStreamUtil;
+import com.opencsv.CSVWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Asynchronous generation for large documents: submit requirements, poll the job, then page
+ * through the results or download them once the job has completed.
+ */
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+public class JobController {
+    private final JobService jobService;
+    private final CsvExportUtil csvExportUtil;
+    private final ColumnarExportUtil columnarExportUtil;
+    private final NdjsonStreamUtil ndjsonStreamUtil;
+
+    @PostMapping(consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<JobView> submit(HttpServletRequest request) throws IOException {
+        // The declared length is checked against the pending budget before the body is parsed
+        JobView job = jobService.submit(ndjsonStreamUtil.readRequirements(request.getInputStream()),
+                request.getContentLengthLong());
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(job.getId()).toUri())
+                .body(job);
+    }
+
+    @GetMapping("/{id}")
+    public JobView status(@PathVariable String id) {
+        return jobService.find(id).orElseThrow(() -> notFound(id));
+    }
+
+    /** Results produced so far; usable while the job is still running. */
+    @GetMapping("/{id}/results")
+    public JobResultPage results(@PathVariable String id,
+                                 @RequestParam(defaultValue = "0") int offset,
+                                 @RequestParam(defaultValue = "0") int limit) {
+        return jobService.page(id, offset, limit).orElseThrow(() -> notFound(id));
+    }
+
+    @GetMapping("/{id}/results.json")
+    public TestCaseResponse resultsJson(@PathVariable String id) {
+        return new TestCaseResponse(completedResults(id));
+    }
+
+    @GetMapping("/{id}/results.csv")
+    public void resultsCsv(@PathVariable String id, HttpServletResponse response) throws IOException {
+        List<TestCase> testCases = completedResults(id);
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=kscribe_testcases.csv");
+        try (CSVWriter csvWriter = csvExportUtil.openCsvWriter(response.getOutputStream())) {
+            testCases.forEach(tc -> csvExportUtil.writeTestCase(csvWriter, tc));
+        }
+    }
+
+    @GetMapping("/{id}/results" + ColumnarFormat.FILE_EXTENSION)
+    public void resultsColumnar(@PathVariable String id, HttpServletResponse response) throws IOException {
+        List<TestCase> testCases = completedResults(id);
+        response.setContentType(ColumnarFormat.MEDIA_TYPE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=kscribe_testcases" + ColumnarFormat.FILE_EXTENSION);
+        try (ColumnarWriter writer = columnarExportUtil.openWriter(response.getOutputStream())) {
+            for (TestCase tc : testCases) {
+                writer.write(tc);
+            }
+        }
+    }
+
+    /** Cancels the job if it has not finished and discards its results. */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable String id) {
+        if (!jobService.delete(id)) throw notFound(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler({JsonProcessingException.class, RuntimeJsonMappingException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public void malformedRequirements() {
+    }
+
+    private List<TestCase> completedResults(String id) {
+        JobView job = jobService.find(id).orElseThrow(() -> notFound(id));
+        if (job.getStatus() != JobStatus.COMPLETED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Job " + id + " is " + job.getStatus());
+        }
+        return jobService.results(id).orElseThrow(() -> notFound(id));
+    }
+
+    private static ResponseStatusException notFound(String id) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown job " + id);
+    }
+}
@@ -1,17 +1,36 @@
 package com.kscribe.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.kscribe.columnar.ColumnarFormat;
+import com.kscribe.columnar.ColumnarWriter;
+import com.kscribe.metrics.Stage;
+import com.kscribe.metrics.StageMetrics;
 import com.kscribe.model.Requirement;
 import com.kscribe.model.TestCase;
 import com.kscribe.model.TestCaseResponse;
+import com.kscribe.service.TestCaseDeduplicator;
 import com.kscribe.service.TestCaseGeneratorService;
+import com.kscribe.util.ColumnarExportUtil;
 import com.kscribe.util.CsvExportUtil;
+import com.kscribe.util.NdjsonStreamUtil;
+import com.opencsv.CSVWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @CrossOrigin(origins = "*")
 @RestController
@@ -19,21 +38,97 @@ import java.util.List;
 @RequiredArgsConstructor
 public class RequirementController {
     private final TestCaseGeneratorService testCaseGeneratorService;
+    private final TestCaseDeduplicator testCaseDeduplicator;
     private final CsvExportUtil csvExportUtil;
+    private final ColumnarExportUtil columnarExportUtil;
+    private final NdjsonStreamUtil ndjsonStreamUtil;
+    private final StageMetrics stageMetrics;
 
     @PostMapping("/to-testcases")
-    public TestCaseResponse generateTestCases(@RequestBody List<Requirement> requirements) {
+    public TestCaseResponse generateTestCases(@RequestParam(defaultValue = "false") boolean dedup,
+                                              @RequestBody List<Requirement> requirements) {
+        if (dedup) {
+            // Merged test cases point back to their requirements, so results are kept grouped per requirement
+            List<List<TestCase>> groups = new ArrayList<>(requirements.size());
+            testCaseGeneratorService.generateTestCases(requirements.iterator(), groups::add);
+            return testCaseDeduplicator.deduplicate(groups);
+        }
         List<TestCase> testCases = testCaseGeneratorService.generateTestCases(requirements);
         return new TestCaseResponse(testCases);
     }
 
-    @PostMapping("/to-csv")
-    public ResponseEntity<byte[]> generateTestCasesCsv(@RequestBody List<Requirement> requirements) {
-        List<TestCase> testCases = testCaseGeneratorService.generateTestCases(requirements);
-        byte[] csv = csvExportUtil.exportTestCasesToCsv(testCases);
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=kscribe_testcases.csv")
-                .contentType(MediaType.parseMediaType("text/csv"))
-                .body(csv);
+    /**
+     * Streaming counterpart of {@code /to-testcases}. Accepts a JSON array or NDJSON of requirements
+     * and writes one test case per line, flushing after each requirement.
+     */
+    @PostMapping(value = "/to-testcases/stream",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamTestCases(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Iterator<Requirement> requirements = ndjsonStreamUtil.readRequirements(request.getInputStream());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        try (JsonGenerator generator = ndjsonStreamUtil.openGenerator(response.getOutputStream())) {
+            testCaseGeneratorService.generateTestCases(requirements, group -> {
+                long start = stageMetrics.start();
+                group.forEach(tc -> ndjsonStreamUtil.writeTestCase(generator, tc));
+                try {
+                    generator.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                stageMetrics.stop(Stage.NDJSON_SERIALIZATION, start);
+            });
+        }
+    }
+
+    // Rows are written to the response as they are generated instead of being assembled in memory first;
+    // the body may be a JSON array or NDJSON and is read incrementally as well
+    @PostMapping(value = "/to-csv", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public void generateTestCasesCsv(@RequestParam(defaultValue = "false") boolean gzip,
+                                     HttpServletRequest request,
+                                     HttpServletResponse response) throws IOException {
+        Iterator<Requirement> requirements = ndjsonStreamUtil.readRequirements(request.getInputStream());
+        if (gzip) {
+            response.setContentType("application/gzip");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=kscribe_testcases.csv.gz");
+        } else {
+            response.setContentType("text/csv;charset=UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=kscribe_testcases.csv");
+        }
+        OutputStream out = gzip ? new GZIPOutputStream(response.getOutputStream(), 8192) : response.getOutputStream();
+        try (CSVWriter csvWriter = csvExportUtil.openCsvWriter(out)) {
+            testCaseGeneratorService.generateTestCases(requirements, group -> {
+                long start = stageMetrics.start();
+                group.forEach(tc -> csvExportUtil.writeTestCase(csvWriter, tc));
+                stageMetrics.stop(Stage.CSV_SERIALIZATION, start);
+            });
+        }
+    }
+
+    /**
+     * Compact binary counterpart of {@code /to-csv}, read back with {@link com.kscribe.columnar.ColumnarReader}.
+     * {@code compress} overrides {@code kscribe.columnar.compression}.
+     */
+    @PostMapping(value = "/to-columnar", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public void generateTestCasesColumnar(@RequestParam(required = false) Boolean compress,
+                                          HttpServletRequest request,
+                                          HttpServletResponse response) throws IOException {
+        Iterator<Requirement> requirements = ndjsonStreamUtil.readRequirements(request.getInputStream());
+        response.setContentType(ColumnarFormat.MEDIA_TYPE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=kscribe_testcases" + ColumnarFormat.FILE_EXTENSION);
+        OutputStream out = response.getOutputStream();
+        try (ColumnarWriter writer = compress == null ? columnarExportUtil.openWriter(out) : columnarExportUtil.openWriter(out, compress)) {
+            testCaseGeneratorService.generateTestCases(requirements, group -> {
+                long start = stageMetrics.start();
+                group.forEach(tc -> columnarExportUtil.writeTestCase(writer, tc));
+                stageMetrics.stop(Stage.COLUMNAR_SERIALIZATION, start);
+            });
+        }
+    }
+
+    // Streamed bodies are parsed inside the handler, so malformed input surfaces here rather than in @RequestBody
+    @ExceptionHandler({JsonProcessingException.class, RuntimeJsonMappingException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public void malformedRequirements() {
     }
-} 
\ No newline at end of file
+}
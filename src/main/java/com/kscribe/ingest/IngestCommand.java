@@ -0,0 +1,91 @@
+package com.kscribe.ingest;
+
+import com.kscribe.KscribeApplication;
+import com.kscribe.columnar.ColumnarFormat;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * {@code java -jar kscribe-exec.jar ingest <input> <output> [--format=text|markdown]}: generates
+ * test cases for a requirements file without starting the web server. The output format follows
+ * the output file's extension ({@code .csv}, {@code .ndjson}, {@code .jsonl} or {@code .kstc}); other
+ * {@code --name=value} arguments are passed on as Spring properties.
+ */
+public final class IngestCommand {
+    private static final String USAGE = "Usage: ingest <input.txt|input.md> <output.csv|output.ndjson|output.kstc> [--format=text|markdown] [--kscribe.<property>=<value>...]";
+
+    private IngestCommand() {
+    }
+
+    /** Runs the command and returns the process exit code. */
+    public static int run(String[] args) {
+        List<String> paths = new ArrayList<>();
+        List<String> springArgs = new ArrayList<>();
+        InputFormat inputFormat = null;
+        for (String arg : args) {
+            if (arg.startsWith("--format=")) {
+                try {
+                    inputFormat = InputFormat.valueOf(arg.substring("--format=".length()).toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    return usage("Unknown input format: " + arg);
+                }
+            } else if (arg.startsWith("--")) {
+                springArgs.add(arg);
+            } else {
+                paths.add(arg);
+            }
+        }
+        if (paths.size() != 2) return usage(null);
+        Path input = Path.of(paths.get(0));
+        Path output = Path.of(paths.get(1));
+        if (!Files.isRegularFile(input)) return usage("No such file: " + input);
+        String outputName = output.getFileName().toString().toLowerCase(Locale.ROOT);
+        OutputFormat outputFormat;
+        if (outputName.endsWith(".csv")) {
+            outputFormat = OutputFormat.CSV;
+        } else if (outputName.endsWith(".ndjson") || outputName.endsWith(".jsonl")) {
+            outputFormat = OutputFormat.NDJSON;
+        } else if (outputName.endsWith(ColumnarFormat.FILE_EXTENSION)) {
+            outputFormat = OutputFormat.COLUMNAR;
+        } else {
+            return usage("Output must end in .csv, .ndjson, .jsonl or .kstc: " + output);
+        }
+        if (inputFormat == null) {
+            String inputName = input.getFileName().toString().toLowerCase(Locale.ROOT);
+            inputFormat = inputName.endsWith(".md") || inputName.endsWith(".markdown") ? InputFormat.MARKDOWN : InputFormat.TEXT;
+        }
+
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(KscribeApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties("kscribe.browser.enabled=false", "spring.main.banner-mode=off")
+                .run(springArgs.toArray(new String[0]));
+             FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(output), 1 << 16)) {
+            int count = context.getBean(IngestService.class).ingest(in, inputFormat, out, outputFormat);
+            System.out.printf("Wrote %d test cases to %s in %.1f s%n", count, output, (System.nanoTime() - start) / 1e9);
+            return 0;
+        } catch (Exception e) {
+            System.err.println("Ingestion failed: " + e);
+            return 1;
+        }
+    }
+
+    private static int usage(String error) {
+        if (error != null) System.err.println(error);
+        System.err.println(USAGE);
+        return 2;
+    }
+}
@@ -0,0 +1,12 @@
+package com.kscribe.ingest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties(prefix = "kscribe.ingest")
+public class IngestProperties {
+    /** Bytes read from the input at a time; text held while segmenting stays within a small multiple of it. */
+    private DataSize chunkSize = DataSize.ofKilobytes(64);
+}
@@ -0,0 +1,66 @@
+package com.kscribe.ingest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.kscribe.columnar.ColumnarWriter;
+import com.kscribe.model.Requirement;
+import com.kscribe.nlp.NlpService;
+import com.kscribe.service.TestCaseGeneratorService;
+import com.kscribe.util.ColumnarExportUtil;
+import com.kscribe.util.CsvExportUtil;
+import com.kscribe.util.NdjsonStreamUtil;
+import com.opencsv.CSVWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Iterator;
+
+/**
+ * Turns a plain-text or Markdown requirements export into test cases without loading it: sentences
+ * are read chunk by chunk, each becomes one requirement, and the generator's streaming path writes
+ * the resulting test cases out as they are produced.
+ */
+@Service
+@RequiredArgsConstructor
+public class IngestService {
+    private final NlpService nlpService;
+    private final TestCaseGeneratorService testCaseGeneratorService;
+    private final CsvExportUtil csvExportUtil;
+    private final ColumnarExportUtil columnarExportUtil;
+    private final NdjsonStreamUtil ndjsonStreamUtil;
+    private final IngestProperties properties;
+
+    /** Reads the input to its end and writes its test cases to {@code out}. Returns the number written. */
+    public int ingest(ReadableByteChannel in, InputFormat inputFormat, OutputStream out, OutputFormat outputFormat) throws IOException {
+        Iterator<String> sentences = new SentenceReader(in, inputFormat, (int) properties.getChunkSize().toBytes(), nlpService::sentences);
+        Iterator<Requirement> requirements = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return sentences.hasNext();
+            }
+
+            @Override
+            public Requirement next() {
+                return new Requirement(sentences.next());
+            }
+        };
+        if (outputFormat == OutputFormat.CSV) {
+            try (CSVWriter csvWriter = csvExportUtil.openCsvWriter(out)) {
+                return testCaseGeneratorService.generateTestCases(requirements,
+                        group -> group.forEach(tc -> csvExportUtil.writeTestCase(csvWriter, tc)));
+            }
+        }
+        if (outputFormat == OutputFormat.COLUMNAR) {
+            try (ColumnarWriter writer = columnarExportUtil.openWriter(out)) {
+                return testCaseGeneratorService.generateTestCases(requirements,
+                        group -> group.forEach(tc -> columnarExportUtil.writeTestCase(writer, tc)));
+            }
+        }
+        try (JsonGenerator generator = ndjsonStreamUtil.openGenerator(out)) {
+            return testCaseGeneratorService.generateTestCases(requirements,
+                    group -> group.forEach(tc -> ndjsonStreamUtil.writeTestCase(generator, tc)));
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.kscribe.ingest;
+
+public enum InputFormat {
+    /** Paragraphs separated by blank lines; lines within a paragraph are joined. */
+    TEXT,
+    /** Like {@link #TEXT}, but list items and table rows are blocks of their own, headings and code blocks are skipped and inline markup is removed. */
+    MARKDOWN
+}
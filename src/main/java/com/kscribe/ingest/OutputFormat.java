@@ -0,0 +1,8 @@
+package com.kscribe.ingest;
+
+public enum OutputFormat {
+    CSV,
+    NDJSON,
+    /** The binary {@link com.kscribe.columnar.ColumnarFormat}. */
+    COLUMNAR
+}
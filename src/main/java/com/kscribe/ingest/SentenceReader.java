@@ -0,0 +1,226 @@
+package com.kscribe.ingest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads UTF-8 text from a channel one chunk at a time and yields its sentences. Lines are
+ * gathered into blocks (paragraphs, or Markdown list items and table rows) and each block is run
+ * through the sentence detector. A block that grows past the chunk size is segmented early: its
+ * complete sentences are emitted and only the trailing, possibly unfinished one is carried over
+ * into the next chunk. Text held at any time is therefore bounded by a small multiple of the chunk
+ * size, whatever the size of the input.
+ */
+public class SentenceReader implements Iterator<String> {
+    private static final Pattern FENCE = Pattern.compile("^\\s*(```|~~~)");
+    private static final Pattern HEADING = Pattern.compile("^\\s{0,3}#{1,6}(\\s|$)");
+    private static final Pattern RULE = Pattern.compile("^\\s{0,3}([-*_])(\\s*\\1){2,}\\s*$");
+    private static final Pattern LIST_ITEM = Pattern.compile("^\\s*([-*+]|\\d{1,9}[.)])\\s+");
+    private static final Pattern QUOTE = Pattern.compile("^\\s*(>\\s?)+");
+    private static final Pattern TABLE_SEPARATOR = Pattern.compile("^\\s*\\|?(\\s*:?-+:?\\s*\\|)+\\s*:?-*:?\\s*$");
+    private static final Pattern LINK = Pattern.compile("!?\\[([^\\]]*)]\\([^)]*\\)");
+    private static final Pattern EMPHASIS = Pattern.compile("\\*\\*|__|`");
+
+    private final ReadableByteChannel channel;
+    private final InputFormat format;
+    private final int chunkSize;
+    private final Function<String, List<String>> sentenceDetector;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer bytes;
+    private final CharBuffer chars;
+    private final StringBuilder line = new StringBuilder();
+    private final StringBuilder block = new StringBuilder();
+    private final ArrayDeque<String> ready = new ArrayDeque<>();
+    // Set when part of an over-long line has already gone into the block
+    private boolean lineContinued;
+    private boolean inFence;
+    private boolean inQuote;
+    private boolean firstChar = true;
+    private boolean eof;
+    private int splitAt;
+
+    public SentenceReader(ReadableByteChannel channel, InputFormat format, int chunkSize,
+                          Function<String, List<String>> sentenceDetector) {
+        this.channel = channel;
+        this.format = format;
+        this.chunkSize = Math.max(1024, chunkSize);
+        this.sentenceDetector = sentenceDetector;
+        this.bytes = ByteBuffer.allocate(this.chunkSize);
+        this.chars = CharBuffer.allocate(this.chunkSize);
+        this.splitAt = this.chunkSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (ready.isEmpty() && !eof) {
+            readChunk();
+        }
+        return !ready.isEmpty();
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return ready.poll();
+    }
+
+    private void readChunk() {
+        try {
+            int read = channel.read(bytes);
+            boolean last = read < 0;
+            bytes.flip();
+            // Bytes of a character split across chunks stay in the buffer until the next read
+            decoder.decode(bytes, chars, last);
+            if (last) decoder.flush(chars);
+            bytes.compact();
+            chars.flip();
+            while (chars.hasRemaining()) {
+                accept(chars.get());
+            }
+            chars.clear();
+            if (last) {
+                eof = true;
+                if (line.length() > 0 || lineContinued) endLine();
+                endBlock();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void accept(char c) {
+        if (firstChar) {
+            firstChar = false;
+            if (c == '\uFEFF') return;
+        }
+        if (c == '\n') {
+            endLine();
+        } else if (line.length() >= chunkSize) {
+            // A line longer than a chunk is passed on in pieces rather than held whole
+            appendText(line, lineContinued);
+            line.setLength(0);
+            lineContinued = true;
+            line.append(c);
+        } else {
+            line.append(c);
+        }
+    }
+
+    private void endLine() {
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\r') line.setLength(end - 1);
+        if (lineContinued) {
+            appendText(line, true);
+        } else if (format == InputFormat.MARKDOWN) {
+            markdownLine(line.toString());
+        } else if (isBlank(line)) {
+            endBlock();
+        } else {
+            appendText(line, false);
+        }
+        line.setLength(0);
+        lineContinued = false;
+    }
+
+    private void markdownLine(String text) {
+        if (FENCE.matcher(text).find()) {
+            inFence = !inFence;
+            endBlock();
+            return;
+        }
+        if (inFence) return;
+        if (text.isBlank() || HEADING.matcher(text).find() || RULE.matcher(text).matches()
+                || TABLE_SEPARATOR.matcher(text).matches()) {
+            endBlock();
+            return;
+        }
+        // A quote starts a block of its own, as does the text after it
+        Matcher quote = QUOTE.matcher(text);
+        boolean quoted = quote.find();
+        if (quoted != inQuote) endBlock();
+        inQuote = quoted;
+        if (quoted) text = text.substring(quote.end());
+        Matcher item = LIST_ITEM.matcher(text);
+        if (item.find()) {
+            endBlock();
+            text = text.substring(item.end());
+        }
+        String trimmed = text.trim();
+        if (trimmed.startsWith("|")) {
+            // Each table row is a block; its cells become clauses
+            endBlock();
+            String row = trimmed.substring(1, trimmed.endsWith("|") && trimmed.length() > 1 ? trimmed.length() - 1 : trimmed.length());
+            appendText(inline(row.replace("|", ";")), false);
+            endBlock();
+            return;
+        }
+        appendText(inline(text.strip()), false);
+    }
+
+    private static String inline(String text) {
+        return EMPHASIS.matcher(LINK.matcher(text).replaceAll("$1")).replaceAll("");
+    }
+
+    private void appendText(CharSequence text, boolean continued) {
+        if (!continued && block.length() > 0) block.append(' ');
+        block.append(text);
+        if (block.length() >= splitAt) splitBlock();
+    }
+
+    // Emits the complete sentences of an over-long block and keeps the last one, which may continue in the next chunk
+    private void splitBlock() {
+        String text = block.toString();
+        List<String> sentences = sentenceDetector.apply(text);
+        int keepFrom = sentences.isEmpty() ? text.length() : text.lastIndexOf(sentences.get(sentences.size() - 1));
+        if (keepFrom <= 0 || sentences.size() < 2) {
+            // A single sentence longer than a chunk is emitted as is
+            if (text.length() - Math.max(0, keepFrom) >= chunkSize) {
+                endBlock();
+                return;
+            }
+        } else {
+            for (int i = 0; i < sentences.size() - 1; i++) {
+                emit(sentences.get(i));
+            }
+            block.delete(0, keepFrom);
+        }
+        splitAt = block.length() + chunkSize;
+    }
+
+    private void endBlock() {
+        if (!isBlank(block)) {
+            for (String sentence : sentenceDetector.apply(block.toString())) {
+                emit(sentence);
+            }
+        }
+        block.setLength(0);
+        splitAt = chunkSize;
+    }
+
+    private void emit(String sentence) {
+        String trimmed = sentence.trim();
+        if (!trimmed.isEmpty()) ready.add(trimmed);
+    }
+
+    private static boolean isBlank(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) return false;
+        }
+        return true;
+    }
+}
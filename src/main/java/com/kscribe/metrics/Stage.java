@@ -0,0 +1,29 @@
+package com.kscribe.metrics;
+
+/** Pipeline stages timed by {@link StageMetrics}; the name is the {@code stage} tag value. */
+public enum Stage {
+    SENTENCE_DETECTION("sentence-detection"),
+    TOKENIZATION("tokenization"),
+    POS_TAGGING("pos-tagging"),
+    LEMMATIZATION("lemmatization"),
+    ENTITY_RECOGNITION("entity-recognition"),
+    CLAUSE_SPLITTING("clause-splitting"),
+    CONDITION_TREE("condition-tree"),
+    /** A whole requirement, including cache lookups and everything above. */
+    REQUIREMENT("requirement"),
+    DEDUPLICATION("deduplication"),
+    JSON_SERIALIZATION("json-serialization"),
+    CSV_SERIALIZATION("csv-serialization"),
+    COLUMNAR_SERIALIZATION("columnar-serialization"),
+    NDJSON_SERIALIZATION("ndjson-serialization");
+
+    private final String tagValue;
+
+    Stage(String tagValue) {
+        this.tagValue = tagValue;
+    }
+
+    public String getTagValue() {
+        return tagValue;
+    }
+}
@@ -0,0 +1,77 @@
+package com.kscribe.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stage timings of a single request, collected when the client asks for them with the debug
+ * header. Parallel generation tasks add to the same breakdown, so stage totals are CPU time
+ * summed across threads and can exceed the wall-clock duration of the request. Allocated bytes are
+ * likewise summed over the request thread and the generation tasks run for it.
+ */
+public final class StageBreakdown {
+    private static final Stage[] STAGES = Stage.values();
+
+    private final LongAdder[] nanos = new LongAdder[STAGES.length];
+    private final LongAdder[] calls = new LongAdder[STAGES.length];
+    private final LongAdder sentences = new LongAdder();
+    private final LongAdder tokens = new LongAdder();
+    private final LongAdder requirements = new LongAdder();
+    private final LongAdder testCases = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    public StageBreakdown() {
+        for (int i = 0; i < STAGES.length; i++) {
+            nanos[i] = new LongAdder();
+            calls[i] = new LongAdder();
+        }
+    }
+
+    void add(Stage stage, long elapsedNanos) {
+        nanos[stage.ordinal()].add(elapsedNanos);
+        calls[stage.ordinal()].increment();
+    }
+
+    void addSentences(int n) {
+        sentences.add(n);
+    }
+
+    void addTokens(int n) {
+        tokens.add(n);
+    }
+
+    void addRequirement(int generatedTestCases) {
+        requirements.increment();
+        testCases.add(generatedTestCases);
+    }
+
+    void addAllocatedBytes(long n) {
+        allocatedBytes.add(n);
+    }
+
+    /**
+     * Formats the breakdown as a {@code Server-Timing} header value, e.g.
+     * {@code total;dur=12.5, pos-tagging;dur=4.1;desc="calls=3", sentences;desc="6", allocated;desc="1048576"}.
+     * {@code allocated} is in bytes and left out when the JVM cannot measure per-thread allocation.
+     */
+    public String toServerTiming(long totalNanos) {
+        StringBuilder sb = new StringBuilder();
+        appendTiming(sb, "total", totalNanos, null);
+        for (Stage stage : STAGES) {
+            long count = calls[stage.ordinal()].sum();
+            if (count > 0) appendTiming(sb, stage.getTagValue(), nanos[stage.ordinal()].sum(), "calls=" + count);
+        }
+        sb.append(", sentences;desc=\"").append(sentences.sum()).append('"');
+        sb.append(", tokens;desc=\"").append(tokens.sum()).append('"');
+        sb.append(", requirements;desc=\"").append(requirements.sum()).append('"');
+        sb.append(", test-cases;desc=\"").append(testCases.sum()).append('"');
+        if (StageMetrics.ALLOCATION_SUPPORTED) sb.append(", allocated;desc=\"").append(allocatedBytes.sum()).append('"');
+        return sb.toString();
+    }
+
+    private static void appendTiming(StringBuilder sb, String name, long elapsedNanos, String desc) {
+        if (sb.length() > 0) sb.append(", ");
+        sb.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.3f", elapsedNanos / 1_000_000.0));
+        if (desc != null) sb.append(";desc=\"").append(desc).append('"');
+    }
+}
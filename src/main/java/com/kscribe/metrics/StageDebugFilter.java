@@ -0,0 +1,79 @@
+package com.kscribe.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+/**
+ * Returns a per-request stage breakdown in a {@code Server-Timing} response header when the request
+ * carries {@code X-KScribe-Debug: true} and {@code kscribe.metrics.debug-header.enabled} is set. The
+ * header has to precede the body, so those responses are buffered in full; streaming endpoints are
+ * never buffered and log the breakdown instead. Also closes the JSON serialization timing started
+ * by {@link SerializationTimingAdvice}.
+ */
+@Slf4j
+@Component
+public class StageDebugFilter extends OncePerRequestFilter {
+    public static final String DEBUG_HEADER = "X-KScribe-Debug";
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+    static final String SERIALIZATION_START = StageDebugFilter.class.getName() + ".serializationStart";
+
+    private final StageMetrics stageMetrics;
+    private final boolean debugHeaderEnabled;
+
+    public StageDebugFilter(StageMetrics stageMetrics,
+                            @Value("${kscribe.metrics.debug-header.enabled:false}") boolean debugHeaderEnabled) {
+        this.stageMetrics = stageMetrics;
+        this.debugHeaderEnabled = debugHeaderEnabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!debugHeaderEnabled || !"true".equalsIgnoreCase(request.getHeader(DEBUG_HEADER))) {
+            chain.doFilter(request, response);
+            stopSerialization(request);
+            return;
+        }
+        StageBreakdown breakdown = new StageBreakdown();
+        boolean streaming = isStreaming(request);
+        ContentCachingResponseWrapper buffered = streaming ? null : new ContentCachingResponseWrapper(response);
+        long start = System.nanoTime();
+        long allocated = StageMetrics.allocatedBytes();
+        stageMetrics.beginBreakdown(breakdown);
+        try {
+            chain.doFilter(request, streaming ? response : buffered);
+            stopSerialization(request);
+        } finally {
+            stageMetrics.endBreakdown();
+            breakdown.addAllocatedBytes(StageMetrics.allocatedBytes() - allocated);
+        }
+        String timing = breakdown.toServerTiming(System.nanoTime() - start);
+        if (streaming) {
+            log.info("{} {}: {}", request.getMethod(), request.getRequestURI(), timing);
+            return;
+        }
+        buffered.setHeader(SERVER_TIMING_HEADER, timing);
+        buffered.copyBodyToResponse();
+    }
+
+    // Responses written as they are produced; buffering them would hold the whole output in memory
+    private static boolean isStreaming(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return path.endsWith("/stream") || path.endsWith("/to-csv") || path.endsWith("/to-columnar")
+                || path.endsWith("/api/ingest") || path.contains("/api/jobs/") && path.contains("/results");
+    }
+
+    private void stopSerialization(HttpServletRequest request) {
+        Object start = request.getAttribute(SERIALIZATION_START);
+        if (start != null) stageMetrics.stop(Stage.JSON_SERIALIZATION, (Long) start);
+    }
+}
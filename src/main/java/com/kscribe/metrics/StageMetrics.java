@@ -0,0 +1,157 @@
+package com.kscribe.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-stage timers and throughput counters for the generation pipeline, published to the meter
+ * registry as {@code kscribe.stage} (tagged by stage, with p50/p99), {@code kscribe.nlp.sentences},
+ * {@code kscribe.nlp.tokens}, {@code kscribe.requirements} and {@code kscribe.testcases.per.requirement}.
+ *
+ * <p>Callers bracket a stage with {@link #start()} and {@link #stop(Stage, long)}. When metrics are
+ * disabled and the current request has no {@link StageBreakdown}, {@code start()} returns without
+ * reading the clock and {@code stop()} returns immediately.
+ *
+ * <p>A breakdown also counts the bytes its request allocated, read from the HotSpot thread
+ * allocation counter; other JVMs report none.
+ */
+@Component
+public class StageMetrics {
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+    private static final ThreadLocal<StageBreakdown> BREAKDOWN = new ThreadLocal<>();
+    private static final com.sun.management.ThreadMXBean THREADS = hotSpotThreads();
+    static final boolean ALLOCATION_SUPPORTED = THREADS != null;
+
+    private final boolean enabled;
+    private final Timer[] timers;
+    private final Counter sentences;
+    private final Counter tokens;
+    private final Counter requirements;
+    private final DistributionSummary testCasesPerRequirement;
+
+    public StageMetrics(MeterRegistry registry, @Value("${kscribe.metrics.stages.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        this.timers = new Timer[Stage.values().length];
+        if (!enabled) {
+            sentences = null;
+            tokens = null;
+            requirements = null;
+            testCasesPerRequirement = null;
+            return;
+        }
+        for (Stage stage : Stage.values()) {
+            timers[stage.ordinal()] = Timer.builder("kscribe.stage")
+                    .description("Time spent in one pipeline stage per call")
+                    .tag("stage", stage.getTagValue())
+                    .publishPercentiles(0.5, 0.99)
+                    .register(registry);
+        }
+        sentences = Counter.builder("kscribe.nlp.sentences").description("Sentences detected").register(registry);
+        tokens = Counter.builder("kscribe.nlp.tokens").description("Tokens produced").register(registry);
+        requirements = Counter.builder("kscribe.requirements").description("Requirements processed").register(registry);
+        testCasesPerRequirement = DistributionSummary.builder("kscribe.testcases.per.requirement")
+                .description("Test cases generated from one requirement")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
+
+    public boolean isActive() {
+        return enabled || BREAKDOWN.get() != null;
+    }
+
+    public long start() {
+        return isActive() ? System.nanoTime() : NOT_TIMED;
+    }
+
+    public void stop(Stage stage, long start) {
+        if (start == NOT_TIMED) return;
+        record(stage, System.nanoTime() - start);
+    }
+
+    /** Records the stage started at {@code start} and returns the start of the next one. */
+    public long lap(Stage stage, long start) {
+        if (start == NOT_TIMED) return NOT_TIMED;
+        long now = System.nanoTime();
+        record(stage, now - start);
+        return now;
+    }
+
+    public void countSentences(int n) {
+        if (enabled) sentences.increment(n);
+        StageBreakdown breakdown = BREAKDOWN.get();
+        if (breakdown != null) breakdown.addSentences(n);
+    }
+
+    public void countTokens(int n) {
+        if (enabled) tokens.increment(n);
+        StageBreakdown breakdown = BREAKDOWN.get();
+        if (breakdown != null) breakdown.addTokens(n);
+    }
+
+    public void countRequirement(int generatedTestCases) {
+        if (enabled) {
+            requirements.increment();
+            testCasesPerRequirement.record(generatedTestCases);
+        }
+        StageBreakdown breakdown = BREAKDOWN.get();
+        if (breakdown != null) breakdown.addRequirement(generatedTestCases);
+    }
+
+    /** Collects this thread's stage timings into {@code breakdown} until {@link #endBreakdown()}. */
+    public void beginBreakdown(StageBreakdown breakdown) {
+        BREAKDOWN.set(breakdown);
+    }
+
+    public void endBreakdown() {
+        BREAKDOWN.remove();
+    }
+
+    /** Wraps a task so that it reports into the submitting thread's breakdown, if there is one. */
+    public <T> Callable<T> propagate(Callable<T> task) {
+        StageBreakdown breakdown = BREAKDOWN.get();
+        if (breakdown == null) return task;
+        return () -> {
+            StageBreakdown previous = BREAKDOWN.get();
+            BREAKDOWN.set(breakdown);
+            long allocated = allocatedBytes();
+            try {
+                return task.call();
+            } finally {
+                breakdown.addAllocatedBytes(allocatedBytes() - allocated);
+                if (previous == null) BREAKDOWN.remove();
+                else BREAKDOWN.set(previous);
+            }
+        };
+    }
+
+    /** Bytes allocated so far by the current thread, or 0 where the JVM cannot tell. */
+    static long allocatedBytes() {
+        return ALLOCATION_SUPPORTED ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    private static com.sun.management.ThreadMXBean hotSpotThreads() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+                if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) return threads;
+            }
+        } catch (LinkageError e) {
+            // Not a HotSpot-derived JVM
+        }
+        return null;
+    }
+
+    private void record(Stage stage, long nanos) {
+        if (enabled) timers[stage.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+        StageBreakdown breakdown = BREAKDOWN.get();
+        if (breakdown != null) breakdown.add(stage, nanos);
+    }
+}
@@ -0,0 +1,16 @@
+package com.kscribe.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DedupReport {
+    private int generated;
+    private int kept;
+    private int removed;
+    /** Kept test cases that absorbed at least one duplicate. */
+    private int mergedGroups;
+}
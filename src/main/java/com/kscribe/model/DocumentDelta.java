@@ -0,0 +1,22 @@
+package com.kscribe.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+/** What one update of a document changed; unchanged test cases are only counted. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentDelta {
+    private String documentId;
+    private long version;
+    private List<TestCase> added = new ArrayList<>();
+    /** Test cases that kept their ID but were regenerated with different content. */
+    private List<TestCase> changed = new ArrayList<>();
+    /** IDs of test cases that no longer exist. */
+    private List<String> removed = new ArrayList<>();
+    private int unchanged;
+}
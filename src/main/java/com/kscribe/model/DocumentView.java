@@ -0,0 +1,15 @@
+package com.kscribe.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentView {
+    private String documentId;
+    private long version;
+    private List<TestCase> testCases;
+}
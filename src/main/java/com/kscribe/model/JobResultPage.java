@@ -0,0 +1,19 @@
+package com.kscribe.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobResultPage {
+    private String jobId;
+    private JobStatus status;
+    private int offset;
+    /** Test cases available so far; grows while the job is running. */
+    private int total;
+    private List<TestCase> testCases;
+}
@@ -0,0 +1,22 @@
+package com.kscribe.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobView {
+    private String id;
+    private JobStatus status;
+    private int totalRequirements;
+    private int processedRequirements;
+    private int testCaseCount;
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+}
@@ -0,0 +1,29 @@
+package com.kscribe.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum Severity {
+    HIGH("High"),
+    MEDIUM("Medium"),
+    LOW("Low");
+
+    private final String label;
+
+    Severity(String label) {
+        this.label = label;
+    }
+
+    /** The severity with the given {@link #getLabel() label}, or {@code null} if there is none. */
+    public static Severity ofLabel(String label) {
+        for (Severity severity : values()) {
+            if (severity.label.equals(label)) return severity;
+        }
+        return null;
+    }
+
+    /** The name used in JSON and CSV output. */
+    @JsonValue
+    public String getLabel() {
+        return label;
+    }
+}
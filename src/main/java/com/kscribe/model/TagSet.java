@@ -0,0 +1,47 @@
+package com.kscribe.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.RandomAccess;
+
+/**
+ * Immutable set of generated tags, read as a list of tag names. A set only holds ids into the tag
+ * names of the registry that built it, {@link com.kscribe.rules.TagRegistry}, which interns the sets
+ * so test cases with the same tags share one instance. Tags are listed in the registry's order.
+ */
+public final class TagSet extends AbstractList<String> implements RandomAccess {
+    private final String[] names;
+    private final int[] ids;
+
+    private TagSet(String[] names, int[] ids) {
+        this.names = names;
+        this.ids = ids;
+    }
+
+    /** The tags whose ids are set in {@code bits}, named by {@code names}; ids index into it. */
+    public static TagSet of(String[] names, BitSet bits) {
+        return new TagSet(names, bits.stream().toArray());
+    }
+
+    @Override
+    public String get(int index) {
+        return names[ids[index]];
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof TagSet && ((TagSet) o).names == names) return Arrays.equals(ids, ((TagSet) o).ids);
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+}
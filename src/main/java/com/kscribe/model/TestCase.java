@@ -1,20 +1,108 @@
 package com.kscribe.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.annotation.JsonSetter;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * A generated test case. Generated instances share their constant parts: titles and expected
+ * outputs are {@link Text}s whose prefixes are shared, steps and preconditions are {@link TextList}s,
+ * generated tags are an interned {@link TagSet} and severity is an enum. Full strings are built when a getter
+ * is called, i.e. when the test case is serialized; the JSON and CSV shape is unchanged.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonPropertyOrder({"id", "title", "description", "preconditions", "steps", "expectedOutput", "severity", "tags", "sourceRequirements", "mergedIds"})
 public class TestCase {
     private String id;
-    private String title;
+    private Text title;
     private String description;
     private List<String> preconditions;
     private List<String> steps;
-    private String expectedOutput;
-    private String severity;
+    private Text expectedOutput;
+    private Severity severity;
     private List<String> tags;
-} 
\ No newline at end of file
+    /** Positions of the requirements this test case came from in the request; set when duplicates are merged. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Integer> sourceRequirements;
+    /** IDs of the near-duplicates merged into this test case. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<String> mergedIds;
+
+    /** The title with its prefix still shared, as generated. */
+    public Text titleText() {
+        return title;
+    }
+
+    public String getTitle() {
+        return title == null ? null : title.toString();
+    }
+
+    @JsonSetter
+    public void setTitle(String title) {
+        this.title = Text.of(title);
+    }
+
+    public void setTitle(Text title) {
+        this.title = title;
+    }
+
+    /** The expected output with its prefix still shared, as generated. */
+    public Text expectedOutputText() {
+        return expectedOutput;
+    }
+
+    public String getExpectedOutput() {
+        return expectedOutput == null ? null : expectedOutput.toString();
+    }
+
+    @JsonSetter
+    public void setExpectedOutput(String expectedOutput) {
+        this.expectedOutput = Text.of(expectedOutput);
+    }
+
+    public void setExpectedOutput(Text expectedOutput) {
+        this.expectedOutput = expectedOutput;
+    }
+
+    /** Generated tag sets are kept as they are; other tags are copied as given, in order and with repeats. */
+    public void setTags(List<String> tags) {
+        this.tags = tags == null || tags instanceof TagSet ? tags : Collections.unmodifiableList(new ArrayList<>(tags));
+    }
+
+    /** A copy without ID or provenance that shares every part with this test case. */
+    public TestCase copyWithoutId() {
+        return new TestCase(null, title, description, preconditions, steps, expectedOutput, severity, tags, null, null);
+    }
+
+    /** Rough retained size in bytes; shared prefixes, severities and tag sets are not counted. */
+    public long estimatedSize() {
+        return 64 + size(title) + size(description) + size(preconditions) + size(steps) + size(expectedOutput);
+    }
+
+    private static long size(Text text) {
+        return text == null ? 0 : 56 + 2L * text.getBody().length();
+    }
+
+    private static long size(String s) {
+        return s == null ? 0 : 40 + 2L * s.length();
+    }
+
+    private static long size(List<String> list) {
+        if (list == null) return 0;
+        if (list instanceof TextList) return ((TextList) list).estimatedSize();
+        long total = 32;
+        for (String s : list) {
+            total += size(s);
+        }
+        return total;
+    }
+}
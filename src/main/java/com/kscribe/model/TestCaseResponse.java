@@ -1,5 +1,6 @@
 package com.kscribe.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -10,4 +11,11 @@ import java.util.List;
 @AllArgsConstructor
 public class TestCaseResponse {
     private List<TestCase> testCases;
-} 
\ No newline at end of file
+    /** Present only when near-duplicates were merged. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private DedupReport dedup;
+
+    public TestCaseResponse(List<TestCase> testCases) {
+        this.testCases = testCases;
+    }
+}
@@ -0,0 +1,61 @@
+package com.kscribe.model;
+
+/**
+ * Immutable text made of a shared prefix and a body, joined only when it is read. Test cases keep
+ * prefixes such as {@code "Negative: "} or {@code "Step: "} as one shared string instead of each
+ * holding its own concatenated copy; the full string is built when the test case is serialized.
+ */
+public final class Text {
+    private final String prefix;
+    private final String body;
+
+    private Text(String prefix, String body) {
+        this.prefix = prefix;
+        this.body = body;
+    }
+
+    public static Text of(String text) {
+        return text == null ? null : new Text("", text);
+    }
+
+    /** {@code prefix} should be a constant; it is shared, not copied. */
+    public static Text of(String prefix, String body) {
+        return new Text(prefix, body);
+    }
+
+    /** This text with {@code outer} in front. Prefixes are interned, so stacking constants stays shared. */
+    public Text prefixed(String outer) {
+        return new Text(prefix.isEmpty() ? outer : (outer + prefix).intern(), body);
+    }
+
+    /** The shared prefix; empty when there is none. */
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public int length() {
+        return prefix.length() + body.length();
+    }
+
+    @Override
+    public String toString() {
+        return prefix.isEmpty() ? body : prefix.concat(body);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Text)) return false;
+        Text other = (Text) o;
+        return length() == other.length() && toString().equals(other.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+}
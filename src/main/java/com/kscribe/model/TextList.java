@@ -0,0 +1,46 @@
+package com.kscribe.model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/** Read-only list view that materializes each {@link Text} as a string when it is read. */
+public final class TextList extends AbstractList<String> implements RandomAccess {
+    private final Text[] texts;
+
+    private TextList(Text[] texts) {
+        this.texts = texts;
+    }
+
+    public static List<String> of(List<Text> texts) {
+        return new TextList(texts.toArray(new Text[0]));
+    }
+
+    public static List<String> of(Text text) {
+        return new TextList(new Text[] {text});
+    }
+
+    @Override
+    public String get(int index) {
+        return texts[index].toString();
+    }
+
+    /** The element as a {@link Text}, prefix still separate. */
+    public Text text(int index) {
+        return texts[index];
+    }
+
+    @Override
+    public int size() {
+        return texts.length;
+    }
+
+    /** Rough retained size in bytes, not counting shared prefixes. */
+    long estimatedSize() {
+        long size = 16 + 4L * texts.length;
+        for (Text text : texts) {
+            size += 56 + 2L * text.getBody().length();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,159 @@
+package com.kscribe.nlp;
+
+import java.util.Arrays;
+
+/**
+ * A piece of text after one pass through the NLP pipeline. Sentences and tokens are kept as
+ * character offsets into the original text, and POS tags and lemmas are arrays parallel to the
+ * tokens, so any substring can be inspected without tokenizing or tagging it again. Dictionary
+ * entity mentions are kept as token ranges.
+ */
+public final class AnnotatedText {
+    private static final String[] NO_STRINGS = new String[0];
+    private static final int[] NO_INTS = new int[0];
+    private static final Entity[] NO_ENTITIES = new Entity[0];
+
+    private final String text;
+    private final int[] sentenceStarts;
+    private final int[] sentenceEnds;
+    private final String[] tokens;
+    private final int[] tokenStarts;
+    private final int[] tokenEnds;
+    private final String[] tags;
+    private final String[] lemmas;
+    private final int[] entityStarts;
+    private final int[] entityEnds;
+    private final Entity[] entities;
+
+    /**
+     * @param tags   POS tags parallel to {@code tokens}, or {@code null} when no tagger is available
+     * @param lemmas lemmas parallel to {@code tokens}, or {@code null} when no lemmatizer is available
+     */
+    public AnnotatedText(String text, int[] sentenceStarts, int[] sentenceEnds,
+                         String[] tokens, int[] tokenStarts, int[] tokenEnds,
+                         String[] tags, String[] lemmas) {
+        this(text, sentenceStarts, sentenceEnds, tokens, tokenStarts, tokenEnds, tags, lemmas, NO_INTS, NO_INTS, NO_ENTITIES);
+    }
+
+    /**
+     * @param entityStarts first token of each entity mention, in increasing order
+     * @param entityEnds   token index one past each mention
+     * @param entities     the entity of each mention
+     */
+    public AnnotatedText(String text, int[] sentenceStarts, int[] sentenceEnds,
+                         String[] tokens, int[] tokenStarts, int[] tokenEnds,
+                         String[] tags, String[] lemmas,
+                         int[] entityStarts, int[] entityEnds, Entity[] entities) {
+        this.text = text;
+        this.sentenceStarts = sentenceStarts;
+        this.sentenceEnds = sentenceEnds;
+        this.tokens = tokens;
+        this.tokenStarts = tokenStarts;
+        this.tokenEnds = tokenEnds;
+        this.tags = tags;
+        this.lemmas = lemmas;
+        this.entityStarts = entityStarts;
+        this.entityEnds = entityEnds;
+        this.entities = entities;
+    }
+
+    /** Text treated as a single sentence with no tokens, used when no models are loaded. */
+    public static AnnotatedText unannotated(String text) {
+        String t = text == null ? "" : text;
+        return new AnnotatedText(t, new int[] {0}, new int[] {t.length()},
+                NO_STRINGS, NO_INTS, NO_INTS, null, null);
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int sentenceCount() {
+        return sentenceStarts.length;
+    }
+
+    public String sentence(int i) {
+        return text.substring(sentenceStarts[i], sentenceEnds[i]);
+    }
+
+    public int sentenceStart(int i) {
+        return sentenceStarts[i];
+    }
+
+    public int sentenceEnd(int i) {
+        return sentenceEnds[i];
+    }
+
+    public int tokenCount() {
+        return tokens.length;
+    }
+
+    public String token(int i) {
+        return tokens[i];
+    }
+
+    public int tokenStart(int i) {
+        return tokenStarts[i];
+    }
+
+    public int tokenEnd(int i) {
+        return tokenEnds[i];
+    }
+
+    public boolean hasTags() {
+        return tags != null;
+    }
+
+    public String tag(int i) {
+        return tags[i];
+    }
+
+    public boolean hasLemmas() {
+        return lemmas != null;
+    }
+
+    public String lemma(int i) {
+        return lemmas[i];
+    }
+
+    public int entityCount() {
+        return entities.length;
+    }
+
+    public Entity entity(int i) {
+        return entities[i];
+    }
+
+    /** Index of the mention's first token. */
+    public int entityStart(int i) {
+        return entityStarts[i];
+    }
+
+    /** Index one past the mention's last token. */
+    public int entityEnd(int i) {
+        return entityEnds[i];
+    }
+
+    /** Index of the first token starting at or after {@code offset}; {@link #tokenCount()} if none. */
+    public int firstTokenAt(int offset) {
+        int idx = Arrays.binarySearch(tokenStarts, offset);
+        if (idx < 0) return -idx - 1;
+        // Token starts are strictly increasing, so an exact hit is the only candidate
+        return idx;
+    }
+
+    /** Index one past the last token lying entirely inside {@code [start, end)}. */
+    public int tokenEndWithin(int start, int end) {
+        int i = firstTokenAt(start);
+        while (i < tokens.length && tokenEnds[i] <= end) i++;
+        return i;
+    }
+
+    /** Whether a token straddles either edge of {@code [start, end)}, i.e. the range splits a word. */
+    public boolean cutsToken(int start, int end) {
+        int first = firstTokenAt(start);
+        if (first > 0 && tokenEnds[first - 1] > start) return true;
+        int last = tokenEndWithin(start, end);
+        return last < tokens.length && tokenStarts[last] < end;
+    }
+}
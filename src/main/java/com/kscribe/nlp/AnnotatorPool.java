@@ -0,0 +1,112 @@
+package com.kscribe.nlp;
+
+import opennlp.tools.postag.POSModel;
+import opennlp.tools.postag.POSTaggerME;
+import opennlp.tools.sentdetect.SentenceDetectorME;
+import opennlp.tools.sentdetect.SentenceModel;
+import opennlp.tools.tokenize.TokenizerME;
+import opennlp.tools.tokenize.TokenizerModel;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of OpenNLP ME annotators. The ME classes keep per-call state and are not
+ * thread-safe, but the models behind them are immutable, so every pooled set shares the
+ * same models and only the lightweight wrappers are duplicated. Sets are created on demand
+ * up to the pool size; beyond that callers block until one is released.
+ */
+public class AnnotatorPool {
+    private final TokenizerModel tokenizerModel;
+    private final SentenceModel sentenceModel;
+    private final POSModel posModel;
+    private final int size;
+    private final BlockingQueue<Annotators> idle;
+    private final AtomicInteger created = new AtomicInteger();
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public AnnotatorPool(TokenizerModel tokenizerModel, SentenceModel sentenceModel, POSModel posModel, int size) {
+        this.tokenizerModel = tokenizerModel;
+        this.sentenceModel = sentenceModel;
+        this.posModel = posModel;
+        this.size = Math.max(1, size);
+        this.idle = new ArrayBlockingQueue<>(this.size);
+    }
+
+    public Annotators acquire() {
+        acquisitions.increment();
+        Annotators annotators = idle.poll();
+        if (annotators != null) return annotators;
+        if (created.getAndUpdate(n -> n < size ? n + 1 : n) < size) {
+            return new Annotators(
+                    tokenizerModel == null ? null : new TokenizerME(tokenizerModel),
+                    sentenceModel == null ? null : new SentenceDetectorME(sentenceModel),
+                    posModel == null ? null : new POSTaggerME(posModel));
+        }
+        long start = System.nanoTime();
+        try {
+            annotators = idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an NLP annotator", e);
+        }
+        long waited = System.nanoTime() - start;
+        waits.increment();
+        waitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        return annotators;
+    }
+
+    public void release(Annotators annotators) {
+        idle.offer(annotators);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getCreated() {
+        return created.get();
+    }
+
+    public int getIdle() {
+        return idle.size();
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    /** Number of acquisitions that found the pool exhausted and had to block. */
+    public long getWaits() {
+        return waits.sum();
+    }
+
+    public long getTotalWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    /** One thread's set of annotators; any of them is {@code null} when its model is missing. */
+    public static final class Annotators {
+        final TokenizerME tokenizer;
+        final SentenceDetectorME sentenceDetector;
+        final POSTaggerME posTagger;
+
+        Annotators(TokenizerME tokenizer, SentenceDetectorME sentenceDetector, POSTaggerME posTagger) {
+            this.tokenizer = tokenizer;
+            this.sentenceDetector = sentenceDetector;
+            this.posTagger = posTagger;
+        }
+    }
+}
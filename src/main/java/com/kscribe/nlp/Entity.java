@@ -0,0 +1,52 @@
+package com.kscribe.nlp;
+
+import com.kscribe.model.Text;
+
+/**
+ * A dictionary entry of the {@link EntityGazetteer}: a canonical name such as {@code login page}
+ * with its type, the tag it adds to a test case and the precondition it contributes.
+ */
+public final class Entity {
+    private final String type;
+    private final String name;
+    private final int index;
+    private final String tag;
+    private final Text precondition;
+
+    Entity(String type, String name, int index) {
+        this.type = type;
+        this.name = name;
+        this.index = index;
+        this.tag = name.replace(' ', '-');
+        // Preconditions read e.g. "Field: email"; the prefix is shared by every entity of the type
+        String prefix = (Character.toUpperCase(type.charAt(0)) + type.substring(1) + ": ").intern();
+        this.precondition = Text.of(prefix, name);
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Position of the entity in its dictionary, from 0. */
+    public int getIndex() {
+        return index;
+    }
+
+    /** The tag the entity adds: its name with spaces replaced by hyphens. */
+    public String getTag() {
+        return tag;
+    }
+
+    public Text getPrecondition() {
+        return precondition;
+    }
+
+    @Override
+    public String toString() {
+        return type + ":" + name;
+    }
+}
@@ -0,0 +1,179 @@
+package com.kscribe.nlp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Dictionary-based entity extraction. Every phrase of the configured dictionary is split into
+ * words and stored in a trie keyed by lower-case token, so a sentence that is already tokenized is
+ * matched by walking the trie from each token: the longest phrase starting there wins and
+ * matching resumes after it. Each token costs a few hash lookups, bounded by the longest phrase.
+ *
+ * <p>The dictionary has one entity per line: {@code type<TAB>name[<TAB>alias...]}. Blank lines and
+ * lines starting with {@code #} are ignored; matching is case-insensitive on whole tokens.
+ */
+@Component
+public class EntityGazetteer {
+    private static final Logger log = LoggerFactory.getLogger(EntityGazetteer.class);
+
+    private final Node root = new Node();
+    private final List<Entity> entities = new ArrayList<>();
+    private final String fingerprint;
+
+    public EntityGazetteer(NlpProperties properties, ResourceLoader resourceLoader) {
+        NlpProperties.Entities config = properties.getEntities();
+        if (!config.isEnabled() || config.getDictionary() == null || config.getDictionary().isBlank()) {
+            this.fingerprint = "none";
+            return;
+        }
+        Resource resource = resourceLoader.getResource(config.getDictionary());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                digest.update((line + '\n').getBytes(StandardCharsets.UTF_8));
+                load(line, lineNumber);
+            }
+            this.fingerprint = HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read entity dictionary " + config.getDictionary(), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        log.info("Loaded {} entities from {}", entities.size(), config.getDictionary());
+    }
+
+    private void load(String line, int lineNumber) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) return;
+        String[] columns = trimmed.split("\t");
+        if (columns.length < 2 || columns[0].isBlank() || words(columns[1]).isEmpty()) {
+            log.warn("Ignoring entity dictionary line {}: expected type<TAB>name[<TAB>alias...]", lineNumber);
+            return;
+        }
+        List<String> nameWords = words(columns[1]);
+        Entity entity = new Entity(columns[0].trim().toLowerCase(Locale.ROOT), String.join(" ", nameWords), entities.size());
+        entities.add(entity);
+        for (int c = 1; c < columns.length; c++) {
+            Node node = root;
+            List<String> phrase = words(columns[c]);
+            if (phrase.isEmpty()) continue;
+            for (String word : phrase) {
+                node = node.children.computeIfAbsent(word, w -> new Node());
+            }
+            // The first entity listing a phrase keeps it
+            if (node.entity == null) node.entity = entity;
+        }
+    }
+
+    /** Number of entities in the dictionary. */
+    public int size() {
+        return entities.size();
+    }
+
+    /** The entities in dictionary order; {@link Entity#getIndex()} is the position in this list. */
+    public List<Entity> entities() {
+        return Collections.unmodifiableList(entities);
+    }
+
+    /** Stable digest of the loaded dictionary; changes whenever its content does. */
+    public String fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Reports the longest, non-overlapping dictionary matches among {@code tokens[from, to)}, left
+     * to right. Match bounds are token indexes, end exclusive.
+     */
+    public void find(String[] tokens, int from, int to, MatchSink sink) {
+        if (root.children.isEmpty()) return;
+        int i = from;
+        while (i < to) {
+            Node node = root;
+            Entity match = null;
+            int matchEnd = i + 1;
+            for (int j = i; j < to; j++) {
+                node = node.child(tokens[j]);
+                if (node == null) break;
+                if (node.entity != null) {
+                    match = node.entity;
+                    matchEnd = j + 1;
+                }
+            }
+            if (match != null) sink.match(i, matchEnd, match);
+            i = matchEnd;
+        }
+    }
+
+    /**
+     * Entities mentioned in untokenized text, in order and without repeats. Words are runs of
+     * letters and digits, optionally joined by hyphens, the same way dictionary phrases are split.
+     */
+    public List<Entity> find(CharSequence text) {
+        List<Entity> entities = new ArrayList<>(2);
+        if (root.children.isEmpty() || text == null) return entities;
+        String[] tokens = words(text).toArray(new String[0]);
+        find(tokens, 0, tokens.length, (start, end, entity) -> {
+            if (!entities.contains(entity)) entities.add(entity);
+        });
+        return entities;
+    }
+
+    private static List<String> words(CharSequence text) {
+        List<String> words = new ArrayList<>();
+        int i = 0;
+        int n = text.length();
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(text.charAt(i))) i++;
+            int start = i;
+            while (i < n && (Character.isLetterOrDigit(text.charAt(i))
+                    || text.charAt(i) == '-' && i + 1 < n && Character.isLetterOrDigit(text.charAt(i + 1)))) i++;
+            if (i > start) words.add(text.subSequence(start, i).toString().toLowerCase(Locale.ROOT));
+        }
+        return words;
+    }
+
+    @FunctionalInterface
+    public interface MatchSink {
+        void match(int start, int end, Entity entity);
+    }
+
+    private static final class Node {
+        final Map<String, Node> children = new HashMap<>(4);
+        Entity entity;
+
+        // Running text is mostly lower case already, so most tokens are looked up without a copy
+        Node child(String token) {
+            Node next = children.get(token);
+            if (next != null || !hasUpperCase(token)) return next;
+            return children.get(token.toLowerCase(Locale.ROOT));
+        }
+
+        private static boolean hasUpperCase(String token) {
+            for (int i = 0; i < token.length(); i++) {
+                if (Character.isUpperCase(token.charAt(i))) return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,504 @@
+package com.kscribe.nlp;
+
+import opennlp.tools.lemmatizer.DictionaryLemmatizer;
+import opennlp.tools.lemmatizer.Lemmatizer;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.CRC32C;
+
+/**
+ * Lemma dictionary served from a memory-mapped binary snapshot of an OpenNLP lemmatizer dictionary
+ * ({@code word<TAB>pos<TAB>lemma[#lemma...]} lines). The text is compiled once into a sorted
+ * snapshot file; later starts map that file instead of parsing the text into a HashMap again, and
+ * the entries stay off the heap where the garbage collector never scans them.
+ *
+ * <p>Lookups behave like {@link DictionaryLemmatizer}: the word is lower-cased, the POS tag must
+ * match exactly, the first lemma is returned or {@code "O"} when there is none, and when the text
+ * lists a word/tag pair twice the later line wins. A lookup compares the query against the mapped
+ * bytes in place and does not allocate, apart from materialising a lemma string the first time
+ * that lemma is returned, and lower-casing words that need locale- or context-sensitive rules.
+ *
+ * <p>Snapshot layout (all offsets absolute):
+ * <pre>
+ * header   magic, version, entry count, POS count, lemma count, the offsets of the entry
+ *          index, lemma index and lemma-list sections, then the CRC-32C of those counts and
+ *          offsets and of everything after the header
+ * POS      u16 length + UTF-8, one per tag; an entry refers to a tag by its position
+ * entries  int offset per entry, sorted by (word bytes, POS code); each entry is
+ *          u16 length + UTF-8 word, u16 POS code, int lemma reference
+ * lemmas   int offset per distinct lemma, each u16 length + UTF-8
+ * lists    for entries with several lemmas: u16 count + int lemma ids
+ * </pre>
+ * A lemma reference is a lemma id, {@link #NO_LEMMAS} for an empty list, or {@code -2 - offset}
+ * of a list. A snapshot whose header or checksum does not hold up is refused with an
+ * {@link IOException} when it is opened.
+ */
+public final class LemmaDictionary implements Lemmatizer {
+    static final int MAGIC = 0x4B534C44; // "KSLD"
+    static final int VERSION = 3;
+    private static final int HEADER_BYTES = 36;
+    private static final int NO_LEMMAS = -1;
+    private static final String NO_LEMMA = "O";
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int entryIndex;
+    private final int lemmaIndex;
+    private final Map<String, Integer> posCodes;
+    // Lemma strings are created on first use and reused afterwards; racy but safe, strings are immutable
+    private final String[] lemmaCache;
+
+    private LemmaDictionary(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a version " + VERSION + " lemma snapshot");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(8, 24));
+        crc.update(buffer.slice(HEADER_BYTES, buffer.capacity() - HEADER_BYTES));
+        if ((int) crc.getValue() != buffer.getInt(32)) throw new IOException("Lemma snapshot checksum mismatch");
+        this.buffer = buffer;
+        this.count = buffer.getInt(8);
+        int posCount = buffer.getInt(12);
+        int lemmaCount = buffer.getInt(16);
+        this.entryIndex = buffer.getInt(20);
+        this.lemmaIndex = buffer.getInt(24);
+        int listData = buffer.getInt(28);
+        if (count < 0 || posCount < 0 || lemmaCount < 0 || entryIndex < HEADER_BYTES
+                || entryIndex + 4L * count > lemmaIndex || lemmaIndex + 4L * lemmaCount > listData
+                || listData > buffer.capacity()) {
+            throw new IOException("Corrupt lemma snapshot header");
+        }
+        this.lemmaCache = new String[lemmaCount];
+        this.posCodes = new HashMap<>();
+        int at = HEADER_BYTES;
+        try {
+            for (int code = 0; code < posCount; code++) {
+                posCodes.put(readString(at).intern(), code);
+                at += 2 + (buffer.getShort(at) & 0xFFFF);
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt lemma snapshot POS table", e);
+        }
+        if (at > entryIndex) throw new IOException("Corrupt lemma snapshot POS table");
+    }
+
+    /** Maps an existing snapshot file. */
+    public static LemmaDictionary open(Path snapshot) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new LemmaDictionary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Maps the snapshot compiled from {@code dictionary}, compiling it into {@code directory} first
+     * if no snapshot of this exact text exists yet. Snapshots are named by format version and a
+     * hash of the text, so neither a changed dictionary nor a format change picks up a stale file,
+     * and a snapshot that fails its checks is compiled again.
+     * On POSIX file systems a missing directory is created private to the current user, and the
+     * directory and snapshot must be owned by that user or root and not be writable by anyone else.
+     */
+    public static LemmaDictionary load(byte[] dictionary, Path directory) throws IOException {
+        Path snapshot = directory.resolve("lemmas-v" + VERSION + "-" + sha256(dictionary).substring(0, 32) + ".bin");
+        if (!Files.isDirectory(directory)) Files.createDirectories(directory, privateDirectory(directory));
+        checkPrivate(directory);
+        if (Files.exists(snapshot)) {
+            checkPrivate(snapshot);
+            try {
+                return open(snapshot);
+            } catch (IOException e) {
+                // Damaged, e.g. by a disk error; compiled again below
+            }
+        }
+        // Write then rename, so a concurrent or interrupted start never maps a half-written file
+        Path tmp = Files.createTempFile(directory, "lemmas", ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            compile(new ByteArrayInputStream(dictionary), out);
+        }
+        Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(snapshot);
+    }
+
+    private static FileAttribute<?>[] privateDirectory(Path directory) {
+        if (!directory.getFileSystem().supportedFileAttributeViews().contains("posix")) return new FileAttribute<?>[0];
+        return new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------"))};
+    }
+
+    // Anyone else able to write here could plant a snapshot that the service then maps and trusts
+    private static void checkPrivate(Path path) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(path, PosixFileAttributeView.class);
+        if (view == null) return;
+        PosixFileAttributes attributes = view.readAttributes();
+        UserPrincipal owner = attributes.owner();
+        UserPrincipal me = path.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName(System.getProperty("user.name"));
+        if (!owner.equals(me) && !owner.getName().equals("root")) {
+            throw new IOException(path + " is owned by " + owner.getName() + ", not by " + me.getName());
+        }
+        if (attributes.permissions().contains(PosixFilePermission.GROUP_WRITE)
+                || attributes.permissions().contains(PosixFilePermission.OTHERS_WRITE)) {
+            throw new IOException(path + " is writable by users other than its owner");
+        }
+    }
+
+    /** Compiles dictionary text into snapshot form. */
+    public static void compile(InputStream dictionary, OutputStream snapshot) throws IOException {
+        // Parsed exactly like DictionaryLemmatizer so the snapshot holds the same entries
+        Map<String, String[]> entries = new HashMap<>();
+        TreeSet<String> tags = new TreeSet<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(dictionary, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] elems = line.split("\t");
+            if (elems.length < 3) continue;
+            entries.put(elems[0] + '\t' + elems[1], elems[2].split("#"));
+            tags.add(elems[1]);
+        }
+        if (tags.size() > 0xFFFF) throw new IOException("Lemma dictionary has more than 65535 POS tags");
+        Map<String, Integer> posCodes = new HashMap<>();
+        for (String tag : tags) {
+            posCodes.put(tag, posCodes.size());
+        }
+
+        // Sort by word bytes, then POS code, the order lookups search in
+        Entry[] sorted = new Entry[entries.size()];
+        int n = 0;
+        for (Map.Entry<String, String[]> e : entries.entrySet()) {
+            int tab = e.getKey().indexOf('\t');
+            sorted[n++] = new Entry(e.getKey().substring(0, tab).getBytes(StandardCharsets.UTF_8),
+                    posCodes.get(e.getKey().substring(tab + 1)), e.getValue());
+        }
+        Arrays.sort(sorted, (a, b) -> {
+            int cmp = Arrays.compareUnsigned(a.word, b.word);
+            return cmp != 0 ? cmp : Integer.compare(a.pos, b.pos);
+        });
+
+        Map<String, Integer> lemmaIds = new LinkedHashMap<>();
+        ByteArrayOutputStream lists = new ByteArrayOutputStream();
+        DataOutputStream listOut = new DataOutputStream(lists);
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream recordOut = new DataOutputStream(records);
+        int[] entryOffsets = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            Entry entry = sorted[i];
+            int ref;
+            if (entry.lemmas.length == 0) {
+                ref = NO_LEMMAS;
+            } else if (entry.lemmas.length == 1) {
+                ref = lemmaIds.computeIfAbsent(entry.lemmas[0], k -> lemmaIds.size());
+            } else {
+                ref = -2 - listOut.size();
+                listOut.writeShort(entry.lemmas.length);
+                for (String lemma : entry.lemmas) {
+                    listOut.writeInt(lemmaIds.computeIfAbsent(lemma, k -> lemmaIds.size()));
+                }
+            }
+            entryOffsets[i] = recordOut.size();
+            writeBytes(recordOut, entry.word);
+            recordOut.writeShort(entry.pos);
+            recordOut.writeInt(ref);
+        }
+        ByteArrayOutputStream lemmaBytes = new ByteArrayOutputStream();
+        DataOutputStream lemmaOut = new DataOutputStream(lemmaBytes);
+        int[] lemmaOffsets = new int[lemmaIds.size()];
+        int id = 0;
+        for (String lemma : lemmaIds.keySet()) {
+            lemmaOffsets[id++] = lemmaOut.size();
+            writeBytes(lemmaOut, lemma.getBytes(StandardCharsets.UTF_8));
+        }
+        ByteArrayOutputStream posBytes = new ByteArrayOutputStream();
+        DataOutputStream posOut = new DataOutputStream(posBytes);
+        for (String tag : tags) {
+            writeBytes(posOut, tag.getBytes(StandardCharsets.UTF_8));
+        }
+
+        long entryIndex = HEADER_BYTES + (long) posBytes.size();
+        long entryData = entryIndex + 4L * sorted.length;
+        long lemmaIndex = entryData + records.size();
+        long lemmaData = lemmaIndex + 4L * lemmaOffsets.length;
+        long listData = lemmaData + lemmaBytes.size();
+        if (listData + lists.size() > Integer.MAX_VALUE) throw new IOException("Lemma dictionary too large for a snapshot");
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream bodyOut = new DataOutputStream(body);
+        posBytes.writeTo(bodyOut);
+        for (int offset : entryOffsets) {
+            bodyOut.writeInt((int) entryData + offset);
+        }
+        records.writeTo(bodyOut);
+        for (int offset : lemmaOffsets) {
+            bodyOut.writeInt((int) lemmaData + offset);
+        }
+        lemmaBytes.writeTo(bodyOut);
+        lists.writeTo(bodyOut);
+        ByteBuffer header = ByteBuffer.allocate(24)
+                .putInt(sorted.length).putInt(tags.size()).putInt(lemmaOffsets.length)
+                .putInt((int) entryIndex).putInt((int) lemmaIndex).putInt((int) listData);
+        CRC32C crc = new CRC32C();
+        crc.update(header.array());
+        crc.update(body.toByteArray());
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(snapshot));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.write(header.array());
+        out.writeInt((int) crc.getValue());
+        body.writeTo(out);
+        out.flush();
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /** The first lemma of {@code word} tagged {@code pos}, or {@code "O"}. */
+    public String lemmatize(String word, String pos) {
+        int entry = find(word, pos);
+        if (entry < 0) return NO_LEMMA;
+        int ref = lemmaRef(entry);
+        if (ref == NO_LEMMAS) return NO_LEMMA;
+        if (ref < 0) ref = buffer.getInt(listStart(ref) + 2);
+        return lemma(ref);
+    }
+
+    @Override
+    public String[] lemmatize(String[] tokens, String[] posTags) {
+        String[] lemmas = new String[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            lemmas[i] = lemmatize(tokens[i], posTags[i]);
+        }
+        return lemmas;
+    }
+
+    @Override
+    public List<List<String>> lemmatize(List<String> tokens, List<String> posTags) {
+        List<List<String>> result = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            result.add(allLemmas(tokens.get(i), posTags.get(i)));
+        }
+        return result;
+    }
+
+    private List<String> allLemmas(String word, String pos) {
+        int entry = find(word, pos);
+        int ref = entry < 0 ? NO_LEMMAS : lemmaRef(entry);
+        if (ref == NO_LEMMAS) return new ArrayList<>(Collections.singletonList(NO_LEMMA));
+        if (ref >= 0) return new ArrayList<>(Collections.singletonList(lemma(ref)));
+        int at = listStart(ref);
+        int n = buffer.getShort(at) & 0xFFFF;
+        List<String> lemmas = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            lemmas.add(lemma(buffer.getInt(at + 2 + 4 * i)));
+        }
+        return lemmas;
+    }
+
+    // Binary search over the sorted entries; returns the entry's offset or -1
+    private int find(String word, String pos) {
+        Integer code = posCodes.get(pos);
+        if (code == null) return -1;
+        String key = word;
+        boolean fold = foldsPerChar(word);
+        if (!fold) {
+            key = word.toLowerCase();
+            // Text decoded from the dictionary never contains lone surrogates
+            if (hasLoneSurrogate(key)) return -1;
+        }
+        int lo = 0;
+        int hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int entry = buffer.getInt(entryIndex + 4 * mid);
+            int cmp = compareWord(entry, key, fold);
+            if (cmp == 0) cmp = Integer.compare(buffer.getShort(wordEnd(entry)) & 0xFFFF, code);
+            if (cmp < 0) lo = mid + 1;
+            else if (cmp > 0) hi = mid - 1;
+            else return entry;
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the entry's word with {@code query}, lower-casing each char on the fly when
+     * {@code fold} is set, by encoding the query to UTF-8 byte by byte. Unsigned byte order is code
+     * point order, the order the entries were sorted in.
+     */
+    private int compareWord(int entry, String query, boolean fold) {
+        int len = buffer.getShort(entry) & 0xFFFF;
+        int at = entry + 2;
+        int b = 0;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            int cp = fold ? Character.toLowerCase(c) : c;
+            if (!fold && Character.isHighSurrogate(c)) cp = Character.toCodePoint(c, query.charAt(++i));
+            int bytes = cp < 0x80 ? 1 : cp < 0x800 ? 2 : cp < 0x10000 ? 3 : 4;
+            for (int k = 0; k < bytes; k++) {
+                if (b == len) return -1;
+                int stored = buffer.get(at + b++) & 0xFF;
+                int wanted = utf8Byte(cp, bytes, k);
+                if (stored != wanted) return stored < wanted ? -1 : 1;
+            }
+        }
+        return b == len ? 0 : 1;
+    }
+
+    private static int utf8Byte(int cp, int bytes, int k) {
+        if (bytes == 1) return cp;
+        if (k == 0) return (0xF0 << (4 - bytes)) & 0xFF | (cp >> (6 * (bytes - 1)));
+        return 0x80 | ((cp >> (6 * (bytes - 1 - k))) & 0x3F);
+    }
+
+    /**
+     * Whether {@code String.toLowerCase()} of this word is just {@code Character.toLowerCase} of
+     * each char, so the lookup can fold as it compares instead of building a lower-cased copy.
+     * Not so for supplementary characters, the context- and locale-sensitive capital sigma and
+     * dotted capital I, or the Turkish, Azeri and Lithuanian locales.
+     */
+    private static boolean foldsPerChar(String word) {
+        String language = Locale.getDefault().getLanguage();
+        if (language.equals("tr") || language.equals("az") || language.equals("lt")) return false;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c >= 0x80 && (Character.isSurrogate(c) || c == '\u03A3' || c == '\u0130')) return false;
+        }
+        return true;
+    }
+
+    private int wordEnd(int entry) {
+        return entry + 2 + (buffer.getShort(entry) & 0xFFFF);
+    }
+
+    private int lemmaRef(int entry) {
+        return buffer.getInt(wordEnd(entry) + 2);
+    }
+
+    private int listStart(int ref) {
+        return buffer.getInt(28) + (-2 - ref);
+    }
+
+    private String lemma(int id) {
+        String lemma = lemmaCache[id];
+        if (lemma == null) {
+            lemma = readString(buffer.getInt(lemmaIndex + 4 * id));
+            lemmaCache[id] = lemma;
+        }
+        return lemma;
+    }
+
+    private String readString(int at) {
+        byte[] bytes = new byte[buffer.getShort(at) & 0xFFFF];
+        buffer.get(at + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes.length > 0xFFFF) throw new IOException("Lemma dictionary entry longer than 65535 bytes");
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static boolean hasLoneSurrogate(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isHighSurrogate(c)) {
+                if (i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) i++;
+                else return true;
+            } else if (Character.isLowSurrogate(c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Looks up every word/tag pair of the dictionary, as written and in upper case, in both this
+     * snapshot and OpenNLP's {@link DictionaryLemmatizer}, and returns the number of differences.
+     */
+    public int verify(byte[] dictionary) throws IOException {
+        DictionaryLemmatizer reference = new DictionaryLemmatizer(new ByteArrayInputStream(dictionary));
+        int mismatches = 0;
+        for (List<String> key : reference.getDictMap().keySet()) {
+            for (String word : new String[] {key.get(0), key.get(0).toUpperCase()}) {
+                List<String> token = Collections.singletonList(word);
+                List<String> tag = Collections.singletonList(key.get(1));
+                if (!reference.lemmatize(token, tag).equals(lemmatize(token, tag))
+                        || !reference.lemmatize(new String[] {word}, new String[] {key.get(1)})[0].equals(lemmatize(word, key.get(1)))) {
+                    mismatches++;
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * Precompiles the snapshot for a dictionary into a directory, e.g. while building a container
+     * image; point {@code kscribe.nlp.lemma-snapshot.directory} at it. With {@code --verify}, every
+     * entry is also checked against OpenNLP's lemmatizer.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: LemmaDictionary <en-lemmatizer.bin> <snapshot-directory> [--verify]");
+            System.exit(2);
+        }
+        byte[] text = Files.readAllBytes(Path.of(args[0]));
+        LemmaDictionary dictionary = load(text, Path.of(args[1]));
+        System.out.println("Compiled " + dictionary.size() + " entries into " + args[1]);
+        if (args.length > 2 && args[2].equals("--verify")) {
+            int mismatches = dictionary.verify(text);
+            System.out.println(mismatches == 0 ? "Snapshot matches DictionaryLemmatizer" : mismatches + " lookups differ from DictionaryLemmatizer");
+            if (mismatches > 0) System.exit(1);
+        }
+    }
+
+    private static final class Entry {
+        final byte[] word;
+        final int pos;
+        final String[] lemmas;
+
+        Entry(byte[] word, int pos, String[] lemmas) {
+            this.word = word;
+            this.pos = pos;
+            this.lemmas = lemmas;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.kscribe.nlp;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports {@code OUT_OF_SERVICE} while NLP models are still loading, so the readiness probe
+ * ({@code /actuator/health/readiness}) keeps traffic away until requests no longer have to wait.
+ * With lazy loading nothing is loading until the first request, so the instance counts as ready.
+ */
+@Component
+@RequiredArgsConstructor
+public class NlpModelsHealthIndicator implements HealthIndicator {
+    private final OpenNlpService nlpService;
+
+    @Override
+    public Health health() {
+        return (nlpService.isReady() ? Health.up() : Health.outOfService()).withDetails(nlpService.loadDetails()).build();
+    }
+}
@@ -0,0 +1,40 @@
+package com.kscribe.nlp;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+@Data
+@ConfigurationProperties(prefix = "kscribe.nlp")
+public class NlpProperties {
+    /** Annotator sets shared across request threads; 0 means one per CPU. */
+    private int poolSize = 0;
+    private ModelLoading loading = ModelLoading.EAGER;
+    private LemmaSnapshot lemmaSnapshot = new LemmaSnapshot();
+    private Entities entities = new Entities();
+
+    public enum ModelLoading {
+        /** Load all models in parallel before the application starts serving. */
+        EAGER,
+        /** Start loading in parallel at startup without waiting; requests block until the models are in. */
+        BACKGROUND,
+        /** Load on the first NLP call. */
+        LAZY
+    }
+
+    @Data
+    public static class LemmaSnapshot {
+        /** Serve lemmas from a compiled, memory-mapped snapshot instead of OpenNLP's in-heap dictionary. */
+        private boolean enabled = true;
+        private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "kscribe-nlp");
+    }
+
+    @Data
+    public static class Entities {
+        /** Extract dictionary entities into tags and preconditions. */
+        private boolean enabled = true;
+        /** Resource location of the entity dictionary, e.g. {@code file:/etc/kscribe/entities.tsv}. */
+        private String dictionary = "classpath:entities.tsv";
+    }
+}
@@ -8,4 +8,11 @@ public interface NlpService {
     List<String> namedEntities(String text);
     List<String> sentences(String text);
     List<String> lemmatize(String text);
+    AnnotatedText annotate(String text);
+
+    /**
+     * Whether calls can be served without waiting for models to load. Lazily loaded models count as
+     * ready, since nothing loads until the first call.
+     */
+    boolean isReady();
 } 
\ No newline at end of file
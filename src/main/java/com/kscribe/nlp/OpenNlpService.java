@@ -1,58 +1,246 @@
 package com.kscribe.nlp;
 
-import opennlp.tools.sentdetect.SentenceDetectorME;
+import com.kscribe.metrics.Stage;
+import com.kscribe.metrics.StageMetrics;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import opennlp.tools.sentdetect.SentenceModel;
-import opennlp.tools.tokenize.TokenizerME;
 import opennlp.tools.tokenize.TokenizerModel;
 import opennlp.tools.postag.POSModel;
-import opennlp.tools.postag.POSTaggerME;
 import opennlp.tools.lemmatizer.DictionaryLemmatizer;
+import opennlp.tools.lemmatizer.Lemmatizer;
+import opennlp.tools.util.Span;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
 
 @Service
-public class OpenNlpService implements NlpService {
-    private TokenizerME tokenizer;
-    private SentenceDetectorME sentenceDetector;
-    private POSTaggerME posTagger;
-    private DictionaryLemmatizer lemmatizer;
+public class OpenNlpService implements NlpService, MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(OpenNlpService.class);
 
-    public OpenNlpService() {
-        try {
-            InputStream tokenModelIn = getClass().getResourceAsStream("/nlp-models/en-token.bin");
-            InputStream sentenceModelIn = getClass().getResourceAsStream("/nlp-models/en-sent.bin");
-            InputStream posModelIn = getClass().getResourceAsStream("/nlp-models/en-pos-maxent.bin");
-            InputStream lemmaModelIn = getClass().getResourceAsStream("/nlp-models/en-lemmatizer.bin");
-            if (tokenModelIn != null && sentenceModelIn != null) {
-                tokenizer = new TokenizerME(new TokenizerModel(tokenModelIn));
-                sentenceDetector = new SentenceDetectorME(new SentenceModel(sentenceModelIn));
-            }
-            if (posModelIn != null) {
-                posTagger = new POSTaggerME(new POSModel(posModelIn));
+    private final NlpProperties properties;
+    private final StageMetrics stageMetrics;
+    private final EntityGazetteer gazetteer;
+    // Set once loading has been started; completes with the loaded models
+    private volatile CompletableFuture<Models> loading;
+    private volatile long loadMillis = -1;
+
+    public OpenNlpService(NlpProperties properties, StageMetrics stageMetrics, EntityGazetteer gazetteer) {
+        this.properties = properties;
+        this.stageMetrics = stageMetrics;
+        this.gazetteer = gazetteer;
+        switch (properties.getLoading()) {
+            case EAGER:
+                loading().join();
+                break;
+            case BACKGROUND:
+                loading();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** Whether all models have finished loading (successfully or not). */
+    public boolean isLoaded() {
+        CompletableFuture<Models> f = loading;
+        return f != null && f.isDone();
+    }
+
+    @Override
+    public boolean isReady() {
+        return isLoaded() || properties.getLoading() == NlpProperties.ModelLoading.LAZY;
+    }
+
+    /** Loading state and the models that are available, for the readiness probe. */
+    public Map<String, Object> loadDetails() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        CompletableFuture<Models> f = loading;
+        details.put("loading", properties.getLoading());
+        details.put("state", f == null ? "NOT_STARTED" : f.isDone() ? "LOADED" : "LOADING");
+        Models m = f == null ? null : f.getNow(null);
+        if (m != null) {
+            details.put("tokenizer", m.tokenizerModel != null);
+            details.put("sentenceDetector", m.sentenceModel != null);
+            details.put("posTagger", m.posModel != null);
+            details.put("lemmatizer", m.lemmatizer == null ? "none"
+                    : m.lemmatizer instanceof LemmaDictionary ? "snapshot" : "dictionary");
+            details.put("loadMillis", loadMillis);
+        }
+        return details;
+    }
+
+    public AnnotatorPool getAnnotatorPool() {
+        return models().pool;
+    }
+
+    private Models models() {
+        return loading().join();
+    }
+
+    private CompletableFuture<Models> loading() {
+        CompletableFuture<Models> f = loading;
+        if (f == null) {
+            synchronized (this) {
+                if (loading == null) loading = startLoading();
+                f = loading;
             }
-            if (lemmaModelIn != null) {
-                lemmatizer = new DictionaryLemmatizer(lemmaModelIn);
+        }
+        return f;
+    }
+
+    // Each model is read on its own thread; a missing or unreadable model leaves that feature off, as before
+    private CompletableFuture<Models> startLoading() {
+        long start = System.nanoTime();
+        ExecutorService loader = Executors.newFixedThreadPool(4, r -> {
+            Thread t = new Thread(r, "kscribe-model-loader");
+            t.setDaemon(true);
+            return t;
+        });
+        boolean tokenizerAndSentences = resourceExists("en-token.bin") && resourceExists("en-sent.bin");
+        CompletableFuture<TokenizerModel> tokenizer = tokenizerAndSentences
+                ? CompletableFuture.supplyAsync(() -> loadModel("en-token.bin", TokenizerModel::new), loader)
+                : CompletableFuture.completedFuture(null);
+        CompletableFuture<SentenceModel> sentences = tokenizerAndSentences
+                ? CompletableFuture.supplyAsync(() -> loadModel("en-sent.bin", SentenceModel::new), loader)
+                : CompletableFuture.completedFuture(null);
+        CompletableFuture<POSModel> pos = CompletableFuture.supplyAsync(() -> loadModel("en-pos-maxent.bin", POSModel::new), loader);
+        CompletableFuture<Lemmatizer> lemmas = CompletableFuture.supplyAsync(this::loadLemmatizer, loader);
+        return CompletableFuture.allOf(tokenizer, sentences, pos, lemmas).whenComplete((ignored, e) -> loader.shutdown()).thenApply(ignored -> {
+            Models m = new Models(tokenizer.join(), sentences.join(), pos.join(), lemmas.join(), properties.getPoolSize());
+            loadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            log.info("NLP models loaded in {} ms", loadMillis);
+            return m;
+        });
+    }
+
+    private Lemmatizer loadLemmatizer() {
+        byte[] dictionary = loadModel("en-lemmatizer.bin", InputStream::readAllBytes);
+        if (dictionary == null) return null;
+        NlpProperties.LemmaSnapshot snapshot = properties.getLemmaSnapshot();
+        if (snapshot.isEnabled()) {
+            try {
+                return LemmaDictionary.load(dictionary, snapshot.getDirectory());
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not use lemma snapshot in {}, falling back to the in-heap dictionary: {}",
+                        snapshot.getDirectory(), e.getMessage());
             }
+        }
+        return loadModel("en-lemmatizer.bin", DictionaryLemmatizer::new);
+    }
+
+    private boolean resourceExists(String name) {
+        return getClass().getResource("/nlp-models/" + name) != null;
+    }
+
+    private <T> T loadModel(String name, ModelReader<T> reader) {
+        try (InputStream in = getClass().getResourceAsStream("/nlp-models/" + name)) {
+            return in == null ? null : reader.read(in);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Could not load NLP model {}", name, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("kscribe.nlp.pool.size", this, s -> s.poolStat(AnnotatorPool::getSize))
+                .description("Maximum annotator sets").register(registry);
+        Gauge.builder("kscribe.nlp.pool.created", this, s -> s.poolStat(AnnotatorPool::getCreated))
+                .description("Annotator sets created so far").register(registry);
+        Gauge.builder("kscribe.nlp.pool.idle", this, s -> s.poolStat(AnnotatorPool::getIdle))
+                .description("Annotator sets waiting to be acquired").register(registry);
+        FunctionCounter.builder("kscribe.nlp.pool.acquisitions", this, s -> s.poolStat(AnnotatorPool::getAcquisitions))
+                .register(registry);
+        FunctionTimer.builder("kscribe.nlp.pool.wait", this, s -> (long) s.poolStat(AnnotatorPool::getWaits),
+                        s -> s.poolStat(AnnotatorPool::getTotalWaitNanos), TimeUnit.NANOSECONDS)
+                .description("Acquisitions that found the pool exhausted and the time they blocked").register(registry);
+        TimeGauge.builder("kscribe.nlp.pool.wait.max", this, TimeUnit.NANOSECONDS, s -> s.poolStat(AnnotatorPool::getMaxWaitNanos))
+                .register(registry);
+    }
+
+    // Pool statistics are zero until the models, and with them the pool, exist
+    private double poolStat(ToDoubleFunction<AnnotatorPool> stat) {
+        CompletableFuture<Models> f = loading;
+        Models m = f == null ? null : f.getNow(null);
+        return m == null ? 0 : stat.applyAsDouble(m.pool);
+    }
+
+    @FunctionalInterface
+    private interface ModelReader<T> {
+        T read(InputStream in) throws IOException;
+    }
+
+    // Models are immutable and shared; the ME annotators wrapping them are pooled per thread
+    private static final class Models {
+        final TokenizerModel tokenizerModel;
+        final SentenceModel sentenceModel;
+        final POSModel posModel;
+        final Lemmatizer lemmatizer;
+        final AnnotatorPool pool;
+
+        Models(TokenizerModel tokenizerModel, SentenceModel sentenceModel, POSModel posModel, Lemmatizer lemmatizer, int poolSize) {
+            // The tokenizer and sentence detector are only used together
+            boolean both = tokenizerModel != null && sentenceModel != null;
+            this.tokenizerModel = both ? tokenizerModel : null;
+            this.sentenceModel = both ? sentenceModel : null;
+            this.posModel = posModel;
+            this.lemmatizer = lemmatizer;
+            int size = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+            this.pool = new AnnotatorPool(this.tokenizerModel, this.sentenceModel, posModel, size);
         }
     }
 
     @Override
     public List<String> tokenize(String text) {
-        if (tokenizer == null) return Collections.emptyList();
-        return Arrays.asList(tokenizer.tokenize(text));
+        Models m = models();
+        if (m.tokenizerModel == null) return Collections.emptyList();
+        AnnotatorPool.Annotators nlp = m.pool.acquire();
+        try {
+            long start = stageMetrics.start();
+            String[] tokens = nlp.tokenizer.tokenize(text);
+            stageMetrics.stop(Stage.TOKENIZATION, start);
+            stageMetrics.countTokens(tokens.length);
+            return Arrays.asList(tokens);
+        } finally {
+            m.pool.release(nlp);
+        }
     }
 
     @Override
     public List<String> posTag(String text) {
-        if (posTagger == null || tokenizer == null) return tokenize(text);
-        String[] tokens = tokenizer.tokenize(text);
-        String[] tags = posTagger.tag(tokens);
+        Models m = models();
+        if (m.posModel == null || m.tokenizerModel == null) return tokenize(text);
+        String[] tokens;
+        String[] tags;
+        AnnotatorPool.Annotators nlp = m.pool.acquire();
+        try {
+            long start = stageMetrics.start();
+            tokens = nlp.tokenizer.tokenize(text);
+            start = stageMetrics.lap(Stage.TOKENIZATION, start);
+            tags = nlp.posTagger.tag(tokens);
+            stageMetrics.stop(Stage.POS_TAGGING, start);
+        } finally {
+            m.pool.release(nlp);
+        }
+        stageMetrics.countTokens(tokens.length);
         List<String> result = new java.util.ArrayList<>();
         for (int i = 0; i < tokens.length; i++) {
             result.add(tokens[i] + "/" + tags[i]);
@@ -62,26 +250,167 @@ public class OpenNlpService implements NlpService {
 
     @Override
     public List<String> namedEntities(String text) {
-        // Placeholder: Implement NER
-        return Collections.emptyList();
+        if (text == null) return Collections.emptyList();
+        AnnotatedText doc = annotate(text);
+        List<String> result = new java.util.ArrayList<>();
+        if (doc.tokenCount() == 0) {
+            // No tokenizer: match the dictionary on plain words
+            for (Entity entity : gazetteer.find(text)) {
+                result.add(entity.getName() + "/" + entity.getType());
+            }
+            return result;
+        }
+        for (int i = 0; i < doc.entityCount(); i++) {
+            String mention = text.substring(doc.tokenStart(doc.entityStart(i)), doc.tokenEnd(doc.entityEnd(i) - 1));
+            result.add(mention + "/" + doc.entity(i).getType());
+        }
+        return result;
     }
 
     @Override
     public List<String> sentences(String text) {
-        if (sentenceDetector == null) return Collections.singletonList(text);
-        return Arrays.asList(sentenceDetector.sentDetect(text));
+        Models m = models();
+        if (m.sentenceModel == null) return Collections.singletonList(text);
+        AnnotatorPool.Annotators nlp = m.pool.acquire();
+        try {
+            long start = stageMetrics.start();
+            String[] sentences = nlp.sentenceDetector.sentDetect(text);
+            stageMetrics.stop(Stage.SENTENCE_DETECTION, start);
+            stageMetrics.countSentences(sentences.length);
+            return Arrays.asList(sentences);
+        } finally {
+            m.pool.release(nlp);
+        }
     }
 
     @Override
     public List<String> lemmatize(String text) {
-        if (lemmatizer == null || tokenizer == null || posTagger == null) return tokenize(text);
-        String[] tokens = tokenizer.tokenize(text);
-        String[] tags = posTagger.tag(tokens);
-        String[] lemmas = lemmatizer.lemmatize(tokens, tags);
+        Models m = models();
+        if (m.lemmatizer == null || m.tokenizerModel == null || m.posModel == null) return tokenize(text);
+        String[] tokens;
+        String[] tags;
+        AnnotatorPool.Annotators nlp = m.pool.acquire();
+        try {
+            long start = stageMetrics.start();
+            tokens = nlp.tokenizer.tokenize(text);
+            start = stageMetrics.lap(Stage.TOKENIZATION, start);
+            tags = nlp.posTagger.tag(tokens);
+            stageMetrics.stop(Stage.POS_TAGGING, start);
+        } finally {
+            m.pool.release(nlp);
+        }
+        stageMetrics.countTokens(tokens.length);
+        // Lemmatizers only read their dictionary, so one is shared rather than pooled
+        long start = stageMetrics.start();
+        String[] lemmas = m.lemmatizer.lemmatize(tokens, tags);
+        stageMetrics.stop(Stage.LEMMATIZATION, start);
         List<String> result = new java.util.ArrayList<>();
         for (int i = 0; i < tokens.length; i++) {
             result.add(tokens[i] + ":" + lemmas[i]);
         }
         return result;
     }
-} 
\ No newline at end of file
+
+    @Override
+    public AnnotatedText annotate(String text) {
+        Models m = models();
+        if (text == null || m.tokenizerModel == null || m.sentenceModel == null) return AnnotatedText.unannotated(text);
+        Span[] sentenceSpans;
+        List<Span> tokenSpans = new java.util.ArrayList<>();
+        List<String> tags = m.posModel == null ? null : new java.util.ArrayList<>();
+        AnnotatorPool.Annotators nlp = m.pool.acquire();
+        try {
+            long start = stageMetrics.start();
+            sentenceSpans = nlp.sentenceDetector.sentPosDetect(text);
+            start = stageMetrics.lap(Stage.SENTENCE_DETECTION, start);
+            String[][] sentenceTokens = new String[sentenceSpans.length][];
+            for (int s = 0; s < sentenceSpans.length; s++) {
+                int offset = sentenceSpans[s].getStart();
+                String sentence = text.substring(offset, sentenceSpans[s].getEnd());
+                Span[] spans = nlp.tokenizer.tokenizePos(sentence);
+                sentenceTokens[s] = Span.spansToStrings(spans, sentence);
+                for (Span span : spans) {
+                    tokenSpans.add(new Span(span.getStart() + offset, span.getEnd() + offset));
+                }
+            }
+            start = stageMetrics.lap(Stage.TOKENIZATION, start);
+            if (tags != null) {
+                // Tag one sentence at a time so the tagger sees the same context as before
+                for (String[] tokens : sentenceTokens) {
+                    tags.addAll(Arrays.asList(nlp.posTagger.tag(tokens)));
+                }
+                stageMetrics.stop(Stage.POS_TAGGING, start);
+            }
+        } finally {
+            m.pool.release(nlp);
+        }
+        stageMetrics.countSentences(sentenceSpans.length);
+        stageMetrics.countTokens(tokenSpans.size());
+        int[] sentenceStarts = new int[sentenceSpans.length];
+        int[] sentenceEnds = new int[sentenceSpans.length];
+        for (int s = 0; s < sentenceSpans.length; s++) {
+            sentenceStarts[s] = sentenceSpans[s].getStart();
+            sentenceEnds[s] = sentenceSpans[s].getEnd();
+        }
+        String[] tokens = new String[tokenSpans.size()];
+        int[] tokenStarts = new int[tokens.length];
+        int[] tokenEnds = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            Span span = tokenSpans.get(i);
+            tokenStarts[i] = span.getStart();
+            tokenEnds[i] = span.getEnd();
+            tokens[i] = text.substring(tokenStarts[i], tokenEnds[i]);
+        }
+        String[] tagArray = tags == null ? null : tags.toArray(new String[0]);
+        String[] lemmas = null;
+        if (m.lemmatizer != null && tagArray != null) {
+            long start = stageMetrics.start();
+            lemmas = m.lemmatizer.lemmatize(tokens, tagArray);
+            stageMetrics.stop(Stage.LEMMATIZATION, start);
+        }
+        // Entities are matched per sentence, so a mention never spans a sentence boundary
+        long start = stageMetrics.start();
+        EntityMentions mentions = new EntityMentions();
+        int from = 0;
+        for (int s = 0; s < sentenceEnds.length; s++) {
+            int to = from;
+            while (to < tokens.length && tokenStarts[to] < sentenceEnds[s]) to++;
+            gazetteer.find(tokens, from, to, mentions);
+            from = to;
+        }
+        stageMetrics.stop(Stage.ENTITY_RECOGNITION, start);
+        return new AnnotatedText(text, sentenceStarts, sentenceEnds, tokens, tokenStarts, tokenEnds, tagArray, lemmas,
+                mentions.starts(), mentions.ends(), mentions.entities());
+    }
+
+    private static final class EntityMentions implements EntityGazetteer.MatchSink {
+        private int[] starts = new int[4];
+        private int[] ends = new int[4];
+        private Entity[] entities = new Entity[4];
+        private int count;
+
+        @Override
+        public void match(int start, int end, Entity entity) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+                entities = Arrays.copyOf(entities, count * 2);
+            }
+            starts[count] = start;
+            ends[count] = end;
+            entities[count++] = entity;
+        }
+
+        int[] starts() {
+            return Arrays.copyOf(starts, count);
+        }
+
+        int[] ends() {
+            return Arrays.copyOf(ends, count);
+        }
+
+        Entity[] entities() {
+            return Arrays.copyOf(entities, count);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.kscribe.rules;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Result of one scan of a clause: which features and tags matched, and where each first matched.
+ * Feature ids are the {@link Feature} ordinals followed by the engine's tag rules.
+ */
+public final class ClauseFeatures {
+    private final BitSet matched;
+    private final int[] firstStart;
+
+    ClauseFeatures(int featureCount) {
+        this.matched = new BitSet(featureCount);
+        this.firstStart = new int[featureCount];
+        Arrays.fill(firstStart, -1);
+    }
+
+    void record(int featureId, int start) {
+        if (!matched.get(featureId)) {
+            matched.set(featureId);
+            firstStart[featureId] = start;
+        }
+    }
+
+    public boolean has(Feature feature) {
+        return matched.get(feature.ordinal());
+    }
+
+    /** Start offset of the feature's earliest-ending match in the clause, or -1 when it did not match. */
+    public int firstIndex(Feature feature) {
+        return firstStart[feature.ordinal()];
+    }
+
+    /** Whether the tag rule at {@code tagIndex} in {@link KeywordRuleEngine#tagNames()} matched. */
+    public boolean hasTag(int tagIndex) {
+        return matched.get(Feature.values().length + tagIndex);
+    }
+
+    /** All matched ids as a bitset; the caller gets a copy. */
+    public BitSet toBitSet() {
+        return (BitSet) matched.clone();
+    }
+}
@@ -0,0 +1,228 @@
+package com.kscribe.rules;
+
+import com.kscribe.nlp.AnnotatedText;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-pass parser for conditional sentences over their tokens. Understands {@code if},
+ * {@code when} and {@code unless} with an optional {@code then} or comma before the consequence,
+ * chains of {@code else if} / {@code otherwise if}, and a final {@code else} or {@code otherwise}.
+ * A conditional inside a consequence is nested and ends at the next {@code ;} or {@code .}, so a
+ * later {@code else} after one belongs to the outer conditional; otherwise an {@code else} goes to
+ * the innermost conditional without one. At the top level, a new {@code if} after {@code ;}
+ * starts the next conditional.
+ *
+ * <p>Tokens are classified once and visited a bounded number of times, so parsing is linear in
+ * the sentence length however long the chain is.
+ */
+public final class ConditionParser {
+    /** Nested conditionals beyond this depth are read as plain text. */
+    static final int MAX_DEPTH = 16;
+
+    private static final byte WORD = 0;
+    private static final byte IF = 1;
+    private static final byte WHEN = 2;
+    private static final byte UNLESS = 3;
+    private static final byte THEN = 4;
+    private static final byte ELSE = 5;
+    private static final byte OTHERWISE = 6;
+    private static final byte COMMA = 7;
+    private static final byte STOP = 8;
+    private static final byte CONJUNCTION = 9;
+
+    private final String text;
+    private final int[] starts;
+    private final int[] ends;
+    private final byte[] kinds;
+    // For each token, the next THEN / COMMA before a clause boundary, or -1
+    private final int[] nextThen;
+    private final int[] nextComma;
+    private int pos;
+
+    private ConditionParser(String text, int[] starts, int[] ends) {
+        this.text = text;
+        this.starts = starts;
+        this.ends = ends;
+        int n = starts.length;
+        this.kinds = new byte[n];
+        for (int i = 0; i < n; i++) {
+            kinds[i] = classify(text, starts[i], ends[i]);
+        }
+        this.nextThen = new int[n + 1];
+        this.nextComma = new int[n + 1];
+        nextThen[n] = -1;
+        nextComma[n] = -1;
+        for (int i = n - 1; i >= 0; i--) {
+            byte k = kinds[i];
+            boolean boundary = k == STOP || k == ELSE || k == OTHERWISE || isConditionKeyword(k);
+            nextThen[i] = k == THEN ? i : boundary ? -1 : nextThen[i + 1];
+            nextComma[i] = k == COMMA ? i : boundary ? -1 : nextComma[i + 1];
+        }
+    }
+
+    /** Parses sentence {@code sentence} of the annotated text, using its tokens when it has any. */
+    public static ConditionTree parse(AnnotatedText doc, int sentence) {
+        String text = doc.sentence(sentence);
+        if (doc.tokenCount() == 0) return parse(text);
+        int offset = doc.sentenceStart(sentence);
+        int first = doc.firstTokenAt(offset);
+        int end = doc.tokenEndWithin(offset, doc.sentenceEnd(sentence));
+        int[] starts = new int[end - first];
+        int[] ends = new int[end - first];
+        for (int i = first; i < end; i++) {
+            starts[i - first] = doc.tokenStart(i) - offset;
+            ends[i - first] = doc.tokenEnd(i) - offset;
+        }
+        return new ConditionParser(text, starts, ends).parse();
+    }
+
+    /** Parses plain text, splitting it into words and punctuation itself. */
+    public static ConditionTree parse(String text) {
+        List<int[]> spans = new ArrayList<>();
+        int i = 0;
+        int n = text.length();
+        while (i < n) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < n && (Character.isLetterOrDigit(text.charAt(i)) || text.charAt(i) == '-' || text.charAt(i) == '\'')) i++;
+                spans.add(new int[] {start, i});
+            } else {
+                if (c == ',' || c == ';' || c == '.' || c == '!' || c == '?' || c == ':') spans.add(new int[] {i, i + 1});
+                i++;
+            }
+        }
+        int[] starts = new int[spans.size()];
+        int[] ends = new int[spans.size()];
+        for (int t = 0; t < starts.length; t++) {
+            starts[t] = spans.get(t)[0];
+            ends[t] = spans.get(t)[1];
+        }
+        return new ConditionParser(text, starts, ends).parse();
+    }
+
+    private ConditionTree parse() {
+        int n = kinds.length;
+        int first = 0;
+        while (first < n && !isConditionKeyword(kinds[first])) first++;
+        String prefix = first == 0 ? null : slice(0, first);
+        List<ConditionTree.Conditional> conditionals = new ArrayList<>();
+        pos = first;
+        while (pos < n) {
+            if (isConditionKeyword(kinds[pos])) {
+                conditionals.add(conditional(0));
+            } else {
+                pos++;
+            }
+        }
+        return new ConditionTree(prefix, conditionals);
+    }
+
+    // pos is on the opening keyword
+    private ConditionTree.Conditional conditional(int depth) {
+        List<ConditionTree.Arm> arms = new ArrayList<>(2);
+        arms.add(arm(depth));
+        while (pos < kinds.length) {
+            // At the top level a clause boundary does not end the chain: "if a then b; else c"
+            if (depth == 0 && kinds[pos] == STOP && pos + 1 < kinds.length && isAlternative(kinds[pos + 1])) pos++;
+            if (!isAlternative(kinds[pos])) break;
+            pos++;
+            if (pos < kinds.length && isConditionKeyword(kinds[pos])) {
+                arms.add(arm(depth));
+                continue;
+            }
+            List<ConditionTree.Conditional> nested = new ArrayList<>(0);
+            String action = consequence(depth, nested);
+            arms.add(new ConditionTree.Arm(ConditionTree.Kind.ELSE, null, action, nested));
+            break;
+        }
+        return new ConditionTree.Conditional(arms);
+    }
+
+    // pos is on the arm's keyword
+    private ConditionTree.Arm arm(int depth) {
+        ConditionTree.Kind kind = kinds[pos] == IF ? ConditionTree.Kind.IF
+                : kinds[pos] == WHEN ? ConditionTree.Kind.WHEN : ConditionTree.Kind.UNLESS;
+        int conditionStart = ++pos;
+        int separator = pos < kinds.length ? nextThen[pos] : -1;
+        if (separator < 0 && pos < kinds.length) separator = nextComma[pos];
+        if (separator < 0) {
+            // No consequence of its own, as in "show an error if the field is empty"
+            int end = pos;
+            while (end < kinds.length && !isBoundary(kinds[end])) end++;
+            pos = end;
+            return new ConditionTree.Arm(kind, slice(conditionStart, end), null, List.of());
+        }
+        String condition = slice(conditionStart, separator);
+        pos = separator + 1;
+        List<ConditionTree.Conditional> nested = new ArrayList<>(0);
+        String action = consequence(depth, nested);
+        return new ConditionTree.Arm(kind, condition, action, nested);
+    }
+
+    // Reads a consequence up to the next alternative or, when nested, the next clause boundary
+    private String consequence(int depth, List<ConditionTree.Conditional> nested) {
+        int start = pos;
+        int actionEnd = -1;
+        while (pos < kinds.length) {
+            byte k = kinds[pos];
+            if (isAlternative(k)) break;
+            if (k == STOP) {
+                if (depth > 0) break;
+                if (pos + 1 < kinds.length && (isAlternative(kinds[pos + 1]) || isConditionKeyword(kinds[pos + 1]))) break;
+            } else if (isConditionKeyword(k) && depth + 1 < MAX_DEPTH) {
+                if (actionEnd < 0) {
+                    actionEnd = pos;
+                    // "show x and if y then z": the conjunction joins the two parts
+                    if (actionEnd > start && kinds[actionEnd - 1] == CONJUNCTION) actionEnd--;
+                }
+                nested.add(conditional(depth + 1));
+                continue;
+            }
+            pos++;
+        }
+        return slice(start, actionEnd < 0 ? pos : actionEnd);
+    }
+
+    // Original text of tokens [from, to), without punctuation at either end; empty if nothing is left
+    private String slice(int from, int to) {
+        while (from < to && (kinds[from] == COMMA || kinds[from] == STOP)) from++;
+        while (to > from && (kinds[to - 1] == COMMA || kinds[to - 1] == STOP)) to--;
+        return from == to ? "" : text.substring(starts[from], ends[to - 1]);
+    }
+
+    private static boolean isConditionKeyword(byte k) {
+        return k == IF || k == WHEN || k == UNLESS;
+    }
+
+    private static boolean isAlternative(byte k) {
+        return k == ELSE || k == OTHERWISE;
+    }
+
+    private static boolean isBoundary(byte k) {
+        return k == STOP || isAlternative(k) || isConditionKeyword(k);
+    }
+
+    private static byte classify(String text, int start, int end) {
+        int length = end - start;
+        if (length == 1) {
+            char c = text.charAt(start);
+            if (c == ',') return COMMA;
+            if (c == ';' || c == '.' || c == '!' || c == '?' || c == ':') return STOP;
+        }
+        if (is(text, start, length, "if")) return IF;
+        if (is(text, start, length, "when")) return WHEN;
+        if (is(text, start, length, "unless")) return UNLESS;
+        if (is(text, start, length, "then")) return THEN;
+        if (is(text, start, length, "else")) return ELSE;
+        if (is(text, start, length, "otherwise")) return OTHERWISE;
+        if (is(text, start, length, "and") || is(text, start, length, "or")) return CONJUNCTION;
+        return WORD;
+    }
+
+    private static boolean is(String text, int start, int length, String word) {
+        return length == word.length() && text.regionMatches(true, start, word, 0, length);
+    }
+}
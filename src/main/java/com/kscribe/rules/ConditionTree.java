@@ -0,0 +1,92 @@
+package com.kscribe.rules;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Conditionals found in one sentence by {@link ConditionParser}. Each conditional is a chain of
+ * arms ({@code if … else if … else …}); an arm's consequence may hold further conditionals. All
+ * texts are slices of the original sentence, trimmed of surrounding punctuation.
+ */
+public final class ConditionTree {
+    private final String prefix;
+    private final List<Conditional> conditionals;
+
+    ConditionTree(String prefix, List<Conditional> conditionals) {
+        this.prefix = prefix;
+        this.conditionals = conditionals;
+    }
+
+    /** Text before the first conditional, or {@code null}. */
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public List<Conditional> getConditionals() {
+        return conditionals;
+    }
+
+    /**
+     * Whether the sentence has branches: some conditional has an explicit consequence (after
+     * {@code then} or a comma) or an alternative. A bare trailing "… if x" does not count.
+     */
+    public boolean hasBranches() {
+        for (Conditional conditional : conditionals) {
+            if (conditional.getArms().size() > 1 || conditional.getArms().get(0).getAction() != null) return true;
+        }
+        return false;
+    }
+
+    public enum Kind {
+        IF, WHEN, UNLESS,
+        /** {@code else} or {@code otherwise}: has no condition of its own. */
+        ELSE
+    }
+
+    public static final class Conditional {
+        private final List<Arm> arms;
+
+        Conditional(List<Arm> arms) {
+            this.arms = arms;
+        }
+
+        public List<Arm> getArms() {
+            return arms;
+        }
+    }
+
+    public static final class Arm {
+        private final Kind kind;
+        private final String condition;
+        private final String action;
+        private final List<Conditional> nested;
+
+        Arm(Kind kind, String condition, String action, List<Conditional> nested) {
+            this.kind = kind;
+            this.condition = condition;
+            this.action = action;
+            this.nested = nested.isEmpty() ? Collections.emptyList() : nested;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /** Condition without its keyword; {@code null} for {@link Kind#ELSE}. */
+        public String getCondition() {
+            return condition;
+        }
+
+        /**
+         * Consequence up to the first nested conditional. {@code null} when the arm has no explicit
+         * consequence, empty when the consequence starts with a nested conditional.
+         */
+        public String getAction() {
+            return action;
+        }
+
+        public List<Conditional> getNested() {
+            return nested;
+        }
+    }
+}
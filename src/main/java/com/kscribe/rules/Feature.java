@@ -0,0 +1,51 @@
+package com.kscribe.rules;
+
+/**
+ * Built-in keyword families the generator reacts to. Each family matches when any of its
+ * keywords occurs in the clause, case-insensitively, as a plain substring. Tag families are
+ * not listed here; they come from {@link KeywordRuleEngine#tagNames()} so they can be configured.
+ */
+public enum Feature {
+    NEGATION("not ", "should not", "must not", "cannot", "can't", "won't", "never"),
+    /** "if " at the start of a word, i.e. {@code \bif }. */
+    CONDITIONAL(true, "if "),
+    IF("if "),
+    THEN("then"),
+    ELSE("else"),
+    REQUIREMENT("must ", "should ", "required"),
+    SEVERITY_HIGH("security", "critical", "must not"),
+    SEVERITY_MEDIUM("should not", "error"),
+    EXPECT_ERROR("error"),
+    EXPECT_SUCCESS("success"),
+    TITLE_LOGIN("login"),
+    TITLE_REGISTER("register"),
+    TITLE_RESET("reset"),
+    TITLE_ERROR("error"),
+    TITLE_WARNING("warning"),
+    TITLE_ACCESS("access"),
+    MODAL_SHOULD("should"),
+    MODAL_MUST("must"),
+    MODAL_CAN("can"),
+    MODAL_WILL("will"),
+    MODAL_SHALL("shall");
+
+    private final boolean wordStart;
+    private final String[] keywords;
+
+    Feature(String... keywords) {
+        this(false, keywords);
+    }
+
+    Feature(boolean wordStart, String... keywords) {
+        this.wordStart = wordStart;
+        this.keywords = keywords;
+    }
+
+    public boolean isWordStart() {
+        return wordStart;
+    }
+
+    public String[] getKeywords() {
+        return keywords.clone();
+    }
+}
@@ -0,0 +1,135 @@
+package com.kscribe.rules;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton over lower-cased keywords. Input is folded with
+ * {@link Character#toLowerCase(char)} as it is scanned, so clauses never need to be copied.
+ * Transitions for ASCII are precomputed into a dense table; other characters fall back to a
+ * per-state map plus failure links.
+ */
+final class KeywordAutomaton {
+    private static final int ASCII = 128;
+
+    /** A keyword and the feature ids it reports. */
+    static final class Keyword {
+        final String text;
+        final int[] featureIds;
+        final boolean wordStart;
+
+        Keyword(String text, int[] featureIds, boolean wordStart) {
+            this.text = text;
+            this.featureIds = featureIds;
+            this.wordStart = wordStart;
+        }
+    }
+
+    /** Receives every keyword occurrence, with the offset where it starts in the scanned text. */
+    interface MatchHandler {
+        void onMatch(Keyword keyword, int start);
+    }
+
+    private final int[][] asciiNext;
+    private final List<Map<Character, Integer>> otherGoto;
+    private final int[] fail;
+    private final Keyword[][] outputs;
+
+    KeywordAutomaton(List<Keyword> keywords) {
+        List<int[]> asciiGoto = new ArrayList<>();
+        otherGoto = new ArrayList<>();
+        List<List<Keyword>> out = new ArrayList<>();
+        newState(asciiGoto, out);
+        for (Keyword keyword : keywords) {
+            int state = 0;
+            for (int i = 0; i < keyword.text.length(); i++) {
+                char c = Character.toLowerCase(keyword.text.charAt(i));
+                int next = c < ASCII ? asciiGoto.get(state)[c] : otherGoto.get(state).getOrDefault(c, -1);
+                if (next < 0) {
+                    next = newState(asciiGoto, out);
+                    if (c < ASCII) asciiGoto.get(state)[c] = next;
+                    else otherGoto.get(state).put(c, next);
+                }
+                state = next;
+            }
+            out.get(state).add(keyword);
+        }
+
+        int states = asciiGoto.size();
+        fail = new int[states];
+        asciiNext = new int[states][];
+        outputs = new Keyword[states][];
+        Queue<Integer> queue = new ArrayDeque<>();
+        asciiNext[0] = new int[ASCII];
+        for (int c = 0; c < ASCII; c++) {
+            int next = asciiGoto.get(0)[c];
+            asciiNext[0][c] = Math.max(next, 0);
+            if (next > 0) queue.add(next);
+        }
+        for (int next : otherGoto.get(0).values()) queue.add(next);
+        outputs[0] = out.get(0).toArray(new Keyword[0]);
+        // Breadth-first, so a state's failure target is always finished before the state itself
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            List<Keyword> merged = new ArrayList<>(out.get(state));
+            merged.addAll(Arrays.asList(outputs[fail[state]]));
+            outputs[state] = merged.toArray(new Keyword[0]);
+            asciiNext[state] = new int[ASCII];
+            for (int c = 0; c < ASCII; c++) {
+                int next = asciiGoto.get(state)[c];
+                if (next > 0) {
+                    fail[next] = asciiNext[fail[state]][c];
+                    asciiNext[state][c] = next;
+                    queue.add(next);
+                } else {
+                    asciiNext[state][c] = asciiNext[fail[state]][c];
+                }
+            }
+            for (Map.Entry<Character, Integer> edge : otherGoto.get(state).entrySet()) {
+                fail[edge.getValue()] = step(fail[state], edge.getKey());
+                queue.add(edge.getValue());
+            }
+        }
+    }
+
+    private int newState(List<int[]> asciiGoto, List<List<Keyword>> out) {
+        int[] row = new int[ASCII];
+        Arrays.fill(row, -1);
+        asciiGoto.add(row);
+        otherGoto.add(new HashMap<>());
+        out.add(new ArrayList<>());
+        return asciiGoto.size() - 1;
+    }
+
+    private int step(int state, char c) {
+        if (c < ASCII) return asciiNext[state][c];
+        while (true) {
+            Integer next = otherGoto.get(state).get(c);
+            if (next != null) return next;
+            if (state == 0) return 0;
+            state = fail[state];
+        }
+    }
+
+    void scan(CharSequence text, MatchHandler handler) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = step(state, Character.toLowerCase(text.charAt(i)));
+            for (Keyword keyword : outputs[state]) {
+                int start = i - keyword.text.length() + 1;
+                if (keyword.wordStart && start > 0 && isWordChar(text.charAt(start - 1))) continue;
+                handler.onMatch(keyword, start);
+            }
+        }
+    }
+
+    // Mirrors the \b used by the original regular expressions
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+}
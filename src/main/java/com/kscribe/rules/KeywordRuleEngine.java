@@ -0,0 +1,92 @@
+package com.kscribe.rules;
+
+import com.kscribe.nlp.EntityGazetteer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Matches every keyword family (negation, severity, titles, modals, if/then/else and tags) in a
+ * single pass over a clause. All keywords are compiled into one automaton at startup, so adding
+ * configured tags does not add another scan per keyword.
+ */
+@Component
+public class KeywordRuleEngine {
+    private static final int FEATURES = Feature.values().length;
+
+    private final List<String> tagNames;
+    private final String fingerprint;
+    private final KeywordAutomaton automaton;
+
+    public KeywordRuleEngine(RuleProperties properties, EntityGazetteer entityGazetteer) {
+        Map<String, List<String>> tagRules = new LinkedHashMap<>();
+        tagRules.put("security", List.of("security"));
+        tagRules.put("edge-case", List.of("edge", "empty", "invalid", "expired"));
+        // Entities such as user, email and password are tagged by the EntityGazetteer; without a
+        // dictionary they are keywords again, as they were before entities existed
+        if (entityGazetteer.size() == 0) {
+            tagRules.put("user", List.of("user"));
+            tagRules.put("email", List.of("email"));
+            tagRules.put("password", List.of("password"));
+        }
+        tagRules.put("registration", List.of("registration"));
+        tagRules.put("login", List.of("login"));
+        tagRules.put("reset", List.of("reset"));
+        properties.getTags().forEach((tag, keywords) -> {
+            List<String> merged = new ArrayList<>(tagRules.getOrDefault(tag, List.of()));
+            merged.addAll(keywords);
+            tagRules.put(tag, merged);
+        });
+        this.tagNames = Collections.unmodifiableList(new ArrayList<>(tagRules.keySet()));
+        this.fingerprint = tagRules.toString();
+
+        // One automaton entry per distinct keyword, reporting every family that lists it
+        Map<String, List<Integer>> wordStartIds = new LinkedHashMap<>();
+        Map<String, List<Integer>> plainIds = new LinkedHashMap<>();
+        for (Feature feature : Feature.values()) {
+            for (String keyword : feature.getKeywords()) {
+                (feature.isWordStart() ? wordStartIds : plainIds)
+                        .computeIfAbsent(keyword.toLowerCase(Locale.ROOT), k -> new ArrayList<>()).add(feature.ordinal());
+            }
+        }
+        for (int i = 0; i < tagNames.size(); i++) {
+            for (String keyword : tagRules.get(tagNames.get(i))) {
+                String key = keyword.trim().toLowerCase(Locale.ROOT);
+                if (!key.isEmpty()) plainIds.computeIfAbsent(key, k -> new ArrayList<>()).add(FEATURES + i);
+            }
+        }
+        List<KeywordAutomaton.Keyword> keywords = new ArrayList<>();
+        wordStartIds.forEach((k, ids) -> keywords.add(new KeywordAutomaton.Keyword(k, toArray(ids), true)));
+        plainIds.forEach((k, ids) -> keywords.add(new KeywordAutomaton.Keyword(k, toArray(ids), false)));
+        this.automaton = new KeywordAutomaton(keywords);
+    }
+
+    /** Tag names in rule order: the built-in tags followed by configured ones. */
+    public List<String> tagNames() {
+        return tagNames;
+    }
+
+    /** Stable description of the configured rules; changes whenever the tag rules do. */
+    public String fingerprint() {
+        return fingerprint;
+    }
+
+    public ClauseFeatures match(CharSequence clause) {
+        ClauseFeatures features = new ClauseFeatures(FEATURES + tagNames.size());
+        automaton.scan(clause, (keyword, start) -> {
+            for (int id : keyword.featureIds) {
+                features.record(id, start);
+            }
+        });
+        return features;
+    }
+
+    private static int[] toArray(List<Integer> ids) {
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,23 @@
+package com.kscribe.rules;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extra tag rules, e.g. {@code kscribe.rules.tags.checkout=cart,checkout,payment}. A clause gets the
+ * tag when it contains any of the keywords. Naming a built-in tag adds keywords to it. Tags are
+ * listed in {@code tag-order}, then any others in the order their rules or entities are declared.
+ */
+@Data
+@ConfigurationProperties(prefix = "kscribe.rules")
+public class RuleProperties {
+    private Map<String, List<String>> tags = new LinkedHashMap<>();
+    /** Tags listed first in a test case, in this order, whether they come from keyword rules or entities. */
+    private List<String> tagOrder = new ArrayList<>(List.of("negative", "conditional", "security", "edge-case",
+            "user", "email", "password", "registration", "login", "reset"));
+}
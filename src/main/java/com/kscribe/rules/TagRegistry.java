@@ -0,0 +1,87 @@
+package com.kscribe.rules;
+
+import com.kscribe.model.TagSet;
+import com.kscribe.nlp.Entity;
+import com.kscribe.nlp.EntityGazetteer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The tags the generator can produce, fixed at startup and listed in output order: those named in
+ * {@code kscribe.rules.tag-order}, then the remaining keyword rule tags, then the remaining entity
+ * dictionary tags. Generated {@link TagSet}s index into it and are interned, so test cases with the
+ * same tags share one instance. Tags from anywhere else, such as cached JSON or imported files, are
+ * kept as plain lists by {@link com.kscribe.model.TestCase#setTags} and never added here.
+ */
+@Component
+public class TagRegistry {
+    public static final String NEGATIVE = "negative";
+    public static final String CONDITIONAL = "conditional";
+
+    private final String[] names;
+    private final int negative;
+    private final int conditional;
+    private final int[] ruleTagIds;
+    private final int[] entityTagIds;
+    private final Map<TagSet, TagSet> interned = new ConcurrentHashMap<>();
+
+    public TagRegistry(RuleProperties properties, KeywordRuleEngine ruleEngine, EntityGazetteer entityGazetteer) {
+        List<String> order = new ArrayList<>(properties.getTagOrder());
+        order.add(NEGATIVE);
+        order.add(CONDITIONAL);
+        order.addAll(ruleEngine.tagNames());
+        for (Entity entity : entityGazetteer.entities()) {
+            order.add(entity.getTag());
+        }
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> distinct = new ArrayList<>();
+        for (String name : order) {
+            if (ids.putIfAbsent(name, distinct.size()) == null) distinct.add(name);
+        }
+        this.names = distinct.toArray(new String[0]);
+        this.negative = ids.get(NEGATIVE);
+        this.conditional = ids.get(CONDITIONAL);
+        this.ruleTagIds = ruleEngine.tagNames().stream().mapToInt(ids::get).toArray();
+        this.entityTagIds = entityGazetteer.entities().stream().mapToInt(entity -> ids.get(entity.getTag())).toArray();
+    }
+
+    /** Tag names in output order. */
+    public List<String> names() {
+        return List.of(names);
+    }
+
+    public int negative() {
+        return negative;
+    }
+
+    public int conditional() {
+        return conditional;
+    }
+
+    /** Id of the tag of the rule at {@code tagIndex} in {@link KeywordRuleEngine#tagNames()}. */
+    public int ruleTag(int tagIndex) {
+        return ruleTagIds[tagIndex];
+    }
+
+    public int entityTag(Entity entity) {
+        return entityTagIds[entity.getIndex()];
+    }
+
+    /** Stable description of the tag order; changes whenever output order may. */
+    public String fingerprint() {
+        return String.join(",", names);
+    }
+
+    /** The shared set holding the tags whose ids are set in {@code bits}. */
+    public TagSet tags(BitSet bits) {
+        TagSet tags = TagSet.of(names, bits);
+        TagSet existing = interned.putIfAbsent(tags, tags);
+        return existing == null ? tags : existing;
+    }
+}
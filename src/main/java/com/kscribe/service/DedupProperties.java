@@ -0,0 +1,16 @@
+package com.kscribe.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "kscribe.dedup")
+public class DedupProperties {
+    /** Minimum Jaccard similarity of two test cases' shingle sets for them to be merged. */
+    private double threshold = 0.9;
+    /** Words per shingle. */
+    private int shingleSize = 2;
+    /** MinHash signature length; split into {@link #bands} LSH bands of equal width. */
+    private int hashes = 64;
+    private int bands = 8;
+}
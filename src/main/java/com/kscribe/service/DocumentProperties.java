@@ -0,0 +1,13 @@
+package com.kscribe.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+@Data
+@ConfigurationProperties(prefix = "kscribe.documents")
+public class DocumentProperties {
+    /** Where the last version of each document is kept, one JSON file per document. */
+    private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "kscribe-documents");
+}
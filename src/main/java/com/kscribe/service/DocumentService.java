@@ -0,0 +1,235 @@
+package com.kscribe.service;
+
+import com.kscribe.model.DocumentDelta;
+import com.kscribe.model.DocumentView;
+import com.kscribe.model.Requirement;
+import com.kscribe.model.TestCase;
+import com.kscribe.nlp.NlpService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Incremental generation for documents that are re-posted after small edits. A new version is
+ * split into sentences and their fingerprints are aligned with the stored version's (longest
+ * common subsequence). Matched sentences keep their test cases and IDs; only the sentences that
+ * differ are generated again, and an edited sentence reuses the IDs of the one it replaces.
+ */
+@Service
+@RequiredArgsConstructor
+public class DocumentService {
+    private static final Pattern DOCUMENT_ID = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]{0,127}");
+    // Above this many table cells the unmatched middle is aligned greedily instead of by full LCS
+    private static final long MAX_LCS_CELLS = 1L << 22;
+
+    private final NlpService nlpService;
+    private final TestCaseGeneratorService testCaseGeneratorService;
+    private final DocumentStore store;
+    // Updates of the same document are serialized; striped so the lock table stays bounded
+    private final Object[] locks = newLocks(64);
+
+    /** Stores {@code text} as the new version of the document and returns what changed. */
+    public DocumentDelta update(String id, String text) {
+        checkId(id);
+        synchronized (lockFor(id)) {
+            DocumentState state = store.load(id);
+            if (state == null) state = new DocumentState(id, 0, 1, new ArrayList<>());
+            List<DocumentState.Sentence> before = state.getSentences();
+            List<String> sentences = text == null || text.isBlank() ? List.of() : nlpService.sentences(text);
+            List<String> fingerprints = new ArrayList<>(sentences.size());
+            for (String sentence : sentences) {
+                fingerprints.add(fingerprint(sentence));
+            }
+            List<String> beforeFingerprints = new ArrayList<>(before.size());
+            for (DocumentState.Sentence sentence : before) {
+                beforeFingerprints.add(sentence.getFingerprint());
+            }
+            int[] matched = match(beforeFingerprints, fingerprints);
+
+            DocumentDelta delta = new DocumentDelta();
+            List<DocumentState.Sentence> after = new ArrayList<>(sentences.size());
+            // Between two matched sentences, new sentences replace old ones pairwise; the rest are added or removed
+            int oldPos = 0;
+            int gapStart = 0;
+            for (int j = 0; j <= sentences.size(); j++) {
+                int k = j < sentences.size() ? matched[j] : before.size();
+                if (k < 0) continue;
+                for (int g = gapStart; g < j; g++) {
+                    int o = oldPos + g - gapStart;
+                    List<TestCase> previous = o < k ? before.get(o).getTestCases() : List.of();
+                    after.add(new DocumentState.Sentence(fingerprints.get(g), regenerate(sentences.get(g), previous, state, delta)));
+                }
+                for (int o = oldPos + j - gapStart; o < k; o++) {
+                    before.get(o).getTestCases().forEach(tc -> delta.getRemoved().add(tc.getId()));
+                }
+                if (j < sentences.size()) {
+                    after.add(before.get(k));
+                    delta.setUnchanged(delta.getUnchanged() + before.get(k).getTestCases().size());
+                }
+                oldPos = k + 1;
+                gapStart = j + 1;
+            }
+
+            if (state.getVersion() == 0 || !fingerprints.equals(beforeFingerprints)) {
+                state.setVersion(state.getVersion() + 1);
+                state.setSentences(after);
+                store.save(state);
+            }
+            delta.setDocumentId(id);
+            delta.setVersion(state.getVersion());
+            return delta;
+        }
+    }
+
+    public Optional<DocumentView> find(String id) {
+        checkId(id);
+        DocumentState state = store.load(id);
+        if (state == null) return Optional.empty();
+        List<TestCase> testCases = new ArrayList<>();
+        for (DocumentState.Sentence sentence : state.getSentences()) {
+            testCases.addAll(sentence.getTestCases());
+        }
+        return Optional.of(new DocumentView(id, state.getVersion(), testCases));
+    }
+
+    public boolean delete(String id) {
+        checkId(id);
+        synchronized (lockFor(id)) {
+            return store.delete(id);
+        }
+    }
+
+    // Generates the sentence's test cases, giving them the IDs of the replaced sentence's test cases first
+    private List<TestCase> regenerate(String sentence, List<TestCase> previous, DocumentState state, DocumentDelta delta) {
+        List<TestCase> generated = testCaseGeneratorService.generateForRequirement(new Requirement(sentence));
+        for (int i = 0; i < generated.size(); i++) {
+            TestCase tc = generated.get(i);
+            if (i < previous.size()) {
+                TestCase old = previous.get(i);
+                tc.setId(old.getId());
+                if (tc.equals(old)) {
+                    delta.setUnchanged(delta.getUnchanged() + 1);
+                } else {
+                    delta.getChanged().add(tc);
+                }
+            } else {
+                tc.setId("TC" + state.getNextId());
+                state.setNextId(state.getNextId() + 1);
+                delta.getAdded().add(tc);
+            }
+        }
+        for (int i = generated.size(); i < previous.size(); i++) {
+            delta.getRemoved().add(previous.get(i).getId());
+        }
+        return generated;
+    }
+
+    /**
+     * For each sentence of {@code after}, the index of the sentence of {@code before} it is
+     * unchanged from, or -1. Matches form a longest common subsequence of the fingerprints.
+     */
+    static int[] match(List<String> before, List<String> after) {
+        int[] matched = new int[after.size()];
+        Arrays.fill(matched, -1);
+        int common = Math.min(before.size(), after.size());
+        int prefix = 0;
+        while (prefix < common && before.get(prefix).equals(after.get(prefix))) {
+            matched[prefix] = prefix;
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < common - prefix
+                && before.get(before.size() - 1 - suffix).equals(after.get(after.size() - 1 - suffix))) {
+            matched[after.size() - 1 - suffix] = before.size() - 1 - suffix;
+            suffix++;
+        }
+        int n = before.size() - prefix - suffix;
+        int m = after.size() - prefix - suffix;
+        if (n == 0 || m == 0) return matched;
+        if ((long) (n + 1) * (m + 1) > MAX_LCS_CELLS) {
+            matchGreedy(before, after, prefix, n, m, matched);
+            return matched;
+        }
+        // lcs[i][j]: LCS length of before[prefix + i..] and after[prefix + j..] within the middle
+        int width = m + 1;
+        int[] lcs = new int[(n + 1) * width];
+        for (int i = n - 1; i >= 0; i--) {
+            for (int j = m - 1; j >= 0; j--) {
+                lcs[i * width + j] = before.get(prefix + i).equals(after.get(prefix + j))
+                        ? lcs[(i + 1) * width + j + 1] + 1
+                        : Math.max(lcs[(i + 1) * width + j], lcs[i * width + j + 1]);
+            }
+        }
+        int i = 0;
+        int j = 0;
+        while (i < n && j < m) {
+            if (before.get(prefix + i).equals(after.get(prefix + j))) {
+                matched[prefix + j] = prefix + i;
+                i++;
+                j++;
+            } else if (lcs[(i + 1) * width + j] >= lcs[i * width + j + 1]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return matched;
+    }
+
+    // Each new sentence takes the earliest old occurrence of its fingerprint after the last match
+    private static void matchGreedy(List<String> before, List<String> after, int prefix, int n, int m, int[] matched) {
+        Map<String, ArrayDeque<Integer>> positions = new HashMap<>();
+        for (int i = prefix; i < prefix + n; i++) {
+            positions.computeIfAbsent(before.get(i), k -> new ArrayDeque<>()).add(i);
+        }
+        int last = -1;
+        for (int j = prefix; j < prefix + m; j++) {
+            ArrayDeque<Integer> candidates = positions.get(after.get(j));
+            if (candidates == null) continue;
+            while (!candidates.isEmpty() && candidates.peekFirst() <= last) candidates.pollFirst();
+            if (!candidates.isEmpty()) {
+                last = candidates.pollFirst();
+                matched[j] = last;
+            }
+        }
+    }
+
+    private static String fingerprint(String sentence) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(sentence.trim().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void checkId(String id) {
+        if (id == null || !DOCUMENT_ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("Document IDs are up to 128 letters, digits, '.', '_' or '-' and may not start with '.'");
+        }
+    }
+
+    private Object lockFor(String id) {
+        return locks[Math.floorMod(id.hashCode(), locks.length)];
+    }
+
+    private static Object[] newLocks(int count) {
+        Object[] locks = new Object[count];
+        for (int i = 0; i < count; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+}
@@ -0,0 +1,29 @@
+package com.kscribe.service;
+
+import com.kscribe.model.TestCase;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Stored state of a document: its sentences in order, each with the test cases generated for it. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentState {
+    private String id;
+    private long version;
+    /** Number of the next test case ID; IDs are never reused within a document. */
+    private long nextId = 1;
+    private List<Sentence> sentences = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Sentence {
+        private String fingerprint;
+        private List<TestCase> testCases;
+    }
+}
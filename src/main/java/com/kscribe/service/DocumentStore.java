@@ -0,0 +1,57 @@
+package com.kscribe.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/** Local persistent store of document state, one JSON file per document ID. */
+@Component
+@RequiredArgsConstructor
+public class DocumentStore {
+    private final DocumentProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public DocumentState load(String id) {
+        try (InputStream in = Files.newInputStream(file(id))) {
+            return objectMapper.readValue(in, DocumentState.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read document " + id, e);
+        }
+    }
+
+    public void save(DocumentState state) {
+        Path dir = properties.getDirectory();
+        try {
+            Files.createDirectories(dir);
+            // Write then rename, so a crash never leaves a half-written document behind
+            Path tmp = Files.createTempFile(dir, state.getId(), ".tmp");
+            objectMapper.writeValue(tmp.toFile(), state);
+            Files.move(tmp, file(state.getId()), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write document " + state.getId(), e);
+        }
+    }
+
+    public boolean delete(String id) {
+        try {
+            return Files.deleteIfExists(file(id));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete document " + id, e);
+        }
+    }
+
+    // IDs are validated by DocumentService, so they are safe to use as file names
+    private Path file(String id) {
+        return properties.getDirectory().resolve(id + ".json");
+    }
+}
@@ -0,0 +1,25 @@
+package com.kscribe.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "kscribe.jobs")
+public class JobProperties {
+    /** Jobs processed at the same time. */
+    private int workers = 2;
+    /** Jobs allowed to wait for a worker before submissions are rejected. */
+    private int queueCapacity = 16;
+    /**
+     * Memory for requirement input of queued and running jobs plus results of retained jobs.
+     * Submissions beyond it get 429, and a running job whose results would exceed it fails.
+     */
+    private DataSize maxPendingSize = DataSize.ofMegabytes(256);
+    /** How long finished jobs and their results are kept. */
+    private Duration retention = Duration.ofHours(1);
+    private int maxRetainedJobs = 100;
+    private int defaultPageSize = 500;
+}
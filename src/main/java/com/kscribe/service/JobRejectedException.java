@@ -0,0 +1,13 @@
+package com.kscribe.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class JobRejectedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public JobRejectedException(String message) {
+        super(message);
+    }
+}
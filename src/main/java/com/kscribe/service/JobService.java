@@ -0,0 +1,302 @@
+package com.kscribe.service;
+
+import com.kscribe.model.JobResultPage;
+import com.kscribe.model.JobStatus;
+import com.kscribe.model.JobView;
+import com.kscribe.model.Requirement;
+import com.kscribe.model.TestCase;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background generation for batches too large for a single request. Jobs wait in a bounded queue
+ * for a worker, which streams the requirements through the generator window by window and appends
+ * each requirement's test cases as it finishes, so progress and partial results are visible while
+ * the job runs. Admission is limited both by queue length and by one memory budget, which is charged
+ * with the input of queued and running jobs and with the results of every job until it is evicted or
+ * deleted. A job whose results would overflow the budget fails and keeps what it generated so far.
+ * Finished jobs are dropped once their retention has passed, checked on every call and once a minute.
+ */
+@Service
+public class JobService {
+    private static final Logger log = LoggerFactory.getLogger(JobService.class);
+
+    private final TestCaseGeneratorService testCaseGeneratorService;
+    private final JobProperties properties;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService purger;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    // Input of queued and running jobs plus results of all retained jobs
+    private final AtomicLong pendingBytes = new AtomicLong();
+
+    public JobService(TestCaseGeneratorService testCaseGeneratorService, JobProperties properties) {
+        this.testCaseGeneratorService = testCaseGeneratorService;
+        this.properties = properties;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+                r -> {
+                    Thread t = new Thread(r, "kscribe-job-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.purger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "kscribe-job-purge");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1, Math.min(60_000, properties.getRetention().toMillis()));
+        purger.scheduleWithFixedDelay(this::purgeExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reads the requirements and queues a job for them. {@code declaredBytes} is the request's
+     * Content-Length (or -1); it is reserved before anything is read so an oversize upload is
+     * refused without being parsed. Input is weighed as it is read and rejected once it overflows.
+     */
+    public JobView submit(Iterator<Requirement> requirements, long declaredBytes) {
+        purgeExpired();
+        long reserved = Math.max(0, declaredBytes);
+        reserve(reserved);
+        List<Requirement> input = new ArrayList<>();
+        long weight = 0;
+        try {
+            while (requirements.hasNext()) {
+                Requirement req = requirements.next();
+                long w = 16 + 2L * (req.getText() == null ? 0 : req.getText().length());
+                weight += w;
+                if (weight > reserved) {
+                    reserve(weight - reserved);
+                    reserved = weight;
+                }
+                input.add(req);
+            }
+        } catch (RuntimeException e) {
+            release(reserved);
+            throw e;
+        }
+        Job job = new Job(UUID.randomUUID().toString(), input, reserved);
+        jobs.put(job.id, job);
+        try {
+            workers.execute(new JobTask(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            release(reserved);
+            throw new JobRejectedException("Job queue is full (" + properties.getQueueCapacity() + " waiting jobs); retry later");
+        }
+        return job.view();
+    }
+
+    public Optional<JobView> find(String id) {
+        purgeExpired();
+        return Optional.ofNullable(jobs.get(id)).map(Job::view);
+    }
+
+    public Optional<JobResultPage> page(String id, int offset, int limit) {
+        purgeExpired();
+        Job job = jobs.get(id);
+        if (job == null) return Optional.empty();
+        int size = limit > 0 ? limit : properties.getDefaultPageSize();
+        synchronized (job) {
+            int from = Math.min(Math.max(0, offset), job.results.size());
+            int to = (int) Math.min((long) from + size, job.results.size());
+            return Optional.of(new JobResultPage(job.id, job.status, from, job.results.size(),
+                    new ArrayList<>(job.results.subList(from, to))));
+        }
+    }
+
+    /** All results of a finished job, or empty if the job is unknown. */
+    public Optional<List<TestCase>> results(String id) {
+        purgeExpired();
+        Job job = jobs.get(id);
+        if (job == null) return Optional.empty();
+        synchronized (job) {
+            return Optional.of(new ArrayList<>(job.results));
+        }
+    }
+
+    /** Cancels a queued or running job and forgets it. */
+    public boolean delete(String id) {
+        Job job = jobs.remove(id);
+        if (job == null) return false;
+        job.cancelled = true;
+        if (workers.getQueue().removeIf(r -> r instanceof JobTask && ((JobTask) r).job == job)) {
+            release(job.reservedBytes);
+        }
+        discardResults(job);
+        return true;
+    }
+
+    private void run(Job job) {
+        try {
+            if (job.cancelled) return;
+            job.start();
+            Iterator<Requirement> input = job.input.iterator();
+            Iterator<Requirement> cancellable = new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return !job.cancelled && input.hasNext();
+                }
+
+                @Override
+                public Requirement next() {
+                    return input.next();
+                }
+            };
+            testCaseGeneratorService.generateTestCases(cancellable, group -> append(job, group));
+            job.finish(job.cancelled ? JobStatus.CANCELLED : JobStatus.COMPLETED, null);
+        } catch (RuntimeException e) {
+            log.warn("Job {} failed", job.id, e);
+            job.finish(JobStatus.FAILED, e.getMessage());
+        } finally {
+            job.input = null;
+            release(job.reservedBytes);
+        }
+    }
+
+    private void append(Job job, List<TestCase> group) {
+        long bytes = 0;
+        for (TestCase tc : group) {
+            bytes += tc.estimatedSize();
+        }
+        synchronized (job) {
+            // Deleted or evicted while running; its results are no longer charged or readable
+            if (job.discarded) {
+                job.cancelled = true;
+                return;
+            }
+            if (!tryReserve(bytes)) {
+                throw new JobRejectedException("Job results would exceed " + properties.getMaxPendingSize()
+                        + " of pending jobs and retained results");
+            }
+            job.resultBytes += bytes;
+            job.results.addAll(group);
+            job.processed++;
+        }
+    }
+
+    private void reserve(long bytes) {
+        if (!tryReserve(bytes)) {
+            throw new JobRejectedException("Pending job input and retained results would exceed "
+                    + properties.getMaxPendingSize() + "; retry later");
+        }
+    }
+
+    private boolean tryReserve(long bytes) {
+        long limit = properties.getMaxPendingSize().toBytes();
+        long after = pendingBytes.addAndGet(bytes);
+        if (after > limit) {
+            pendingBytes.addAndGet(-bytes);
+            return false;
+        }
+        return true;
+    }
+
+    private void release(long bytes) {
+        pendingBytes.addAndGet(-bytes);
+    }
+
+    private void discardResults(Job job) {
+        synchronized (job) {
+            if (job.discarded) return;
+            job.discarded = true;
+            release(job.resultBytes);
+            job.results.clear();
+        }
+    }
+
+    private void purgeExpired() {
+        Instant cutoff = Instant.now().minus(properties.getRetention());
+        List<Job> finished = jobs.values().stream()
+                .filter(job -> job.finishedAt != null)
+                .sorted(Comparator.comparing((Job job) -> job.finishedAt))
+                .toList();
+        int excess = finished.size() - properties.getMaxRetainedJobs();
+        for (int i = 0; i < finished.size(); i++) {
+            Job job = finished.get(i);
+            if (i < excess || job.finishedAt.isBefore(cutoff)) {
+                if (jobs.remove(job.id, job)) discardResults(job);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(job -> job.cancelled = true);
+        workers.shutdownNow();
+        purger.shutdownNow();
+    }
+
+    // Runnable wrapper so a queued job can be found and removed when it is deleted
+    private final class JobTask implements Runnable {
+        final Job job;
+
+        JobTask(Job job) {
+            this.job = job;
+        }
+
+        @Override
+        public void run() {
+            JobService.this.run(job);
+        }
+    }
+
+    private static final class Job {
+        final String id;
+        final int total;
+        final long reservedBytes;
+        final Instant submittedAt = Instant.now();
+        final List<TestCase> results = new ArrayList<>();
+        volatile List<Requirement> input;
+        volatile JobStatus status = JobStatus.QUEUED;
+        volatile boolean cancelled;
+        volatile Instant startedAt;
+        volatile Instant finishedAt;
+        volatile String error;
+        int processed;
+        long resultBytes;
+        boolean discarded;
+
+        Job(String id, List<Requirement> input, long reservedBytes) {
+            this.id = id;
+            this.input = input;
+            this.total = input.size();
+            this.reservedBytes = reservedBytes;
+        }
+
+        void start() {
+            startedAt = Instant.now();
+            status = JobStatus.RUNNING;
+        }
+
+        void finish(JobStatus finalStatus, String message) {
+            error = message;
+            finishedAt = Instant.now();
+            status = finalStatus;
+        }
+
+        synchronized JobView view() {
+            return new JobView(id, status, total, processed, results.size(), submittedAt, startedAt, finishedAt, error);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.kscribe.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "kscribe.cache")
+public class ResultCacheProperties {
+    private boolean enabled = true;
+    /** Approximate heap budget for cached test cases, measured by their string content. */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+    private Duration ttl = Duration.ofHours(24);
+    /** Bump to invalidate entries written by an older model set or generator version. */
+    private String namespace = "v1";
+    private Disk disk = new Disk();
+
+    @Data
+    public static class Disk {
+        private boolean enabled = false;
+        private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "kscribe-cache");
+        /** Disk budget; the oldest entries are deleted once the directory grows past it. */
+        private DataSize maxSize = DataSize.ofMegabytes(512);
+        /** How often writes also sweep the directory for expired entries. */
+        private Duration sweepInterval = Duration.ofMinutes(10);
+    }
+}
@@ -0,0 +1,310 @@
+package com.kscribe.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.kscribe.model.TestCase;
+import com.kscribe.nlp.EntityGazetteer;
+import com.kscribe.rules.KeywordRuleEngine;
+import com.kscribe.rules.TagRegistry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed cache of generated test cases per requirement. Entries are keyed by a SHA-256
+ * of the requirement text together with the cache namespace, rule configuration, entity
+ * dictionary and tag order, and are stored without IDs; callers get fresh copies to number, so cached and
+ * uncached output match.
+ * An optional disk tier keeps entries across restarts; it is swept for expired entries and trimmed to
+ * its size budget from the write path.
+ */
+@Component
+public class TestCaseCache implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(TestCaseCache.class);
+    private static final TypeReference<List<TestCase>> TEST_CASE_LIST = new TypeReference<>() {};
+    // Entries and their temporary files; nothing else in the directory is ever deleted
+    private static final Pattern ENTRY_FILE = Pattern.compile("[0-9a-f]{64}(\\.json|\\d*\\.tmp)");
+
+    private final ResultCacheProperties properties;
+    private final ObjectMapper objectMapper;
+    private final String salt;
+    private final AsyncCache<String, List<TestCase>> memory;
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder diskWrites = new LongAdder();
+    private final LongAdder diskEvictions = new LongAdder();
+    // Bytes written since the last sweep, added to what the sweep found
+    private final AtomicLong diskBytes = new AtomicLong();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private volatile long nextSweep = System.nanoTime();
+
+    public TestCaseCache(ResultCacheProperties properties, ObjectMapper objectMapper, KeywordRuleEngine ruleEngine,
+                         EntityGazetteer entityGazetteer, TagRegistry tagRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.salt = properties.getNamespace() + '\n' + ruleEngine.fingerprint() + '\n' + entityGazetteer.fingerprint() + '\n'
+                + tagRegistry.fingerprint() + '\n';
+        this.memory = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxSize().toBytes())
+                .weigher((String key, List<TestCase> value) -> weigh(value))
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .buildAsync();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Cached test cases for the requirement text, computing and storing them on a miss. The miss is
+     * computed on the calling thread outside the cache's locks; concurrent callers for the same text
+     * wait for it instead of generating again.
+     */
+    public List<TestCase> get(String text, Supplier<List<TestCase>> generator) {
+        String key = key(text);
+        CompletableFuture<List<TestCase>> computing = new CompletableFuture<>();
+        CompletableFuture<List<TestCase>> future = memory.get(key, (k, executor) -> computing);
+        if (future == computing) {
+            try {
+                computing.complete(load(key, generator));
+            } catch (RuntimeException | Error e) {
+                // A failed future is dropped from the cache, so the next caller retries
+                computing.completeExceptionally(e);
+                throw e;
+            }
+        }
+        List<TestCase> templates = join(future);
+        List<TestCase> copies = new ArrayList<>(templates.size());
+        for (TestCase tc : templates) {
+            copies.add(tc.copyWithoutId());
+        }
+        return copies;
+    }
+
+    public void clear() {
+        memory.synchronous().invalidateAll();
+        if (!properties.getDisk().isEnabled()) return;
+        try (var files = Files.list(properties.getDisk().getDirectory())) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (isEntry(file)) Files.deleteIfExists(file);
+            }
+        } catch (NoSuchFileException ignored) {
+            // nothing written yet
+        } catch (IOException e) {
+            log.warn("Could not clear test case cache directory: {}", e.getMessage());
+        }
+        diskBytes.set(0);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, memory, "kscribe.testcases");
+        FunctionCounter.builder("kscribe.cache.disk.hits", diskHits, LongAdder::sum).register(registry);
+        FunctionCounter.builder("kscribe.cache.disk.writes", diskWrites, LongAdder::sum).register(registry);
+        FunctionCounter.builder("kscribe.cache.disk.evictions", diskEvictions, LongAdder::sum).register(registry);
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = memory.synchronous().stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", properties.isEnabled());
+        result.put("entries", memory.synchronous().estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("evictedWeight", stats.evictionWeight());
+        result.put("diskHits", diskHits.sum());
+        result.put("diskWrites", diskWrites.sum());
+        result.put("diskEvictions", diskEvictions.sum());
+        return result;
+    }
+
+    private List<TestCase> load(String key, Supplier<List<TestCase>> generator) {
+        List<TestCase> fromDisk = readDisk(key);
+        if (fromDisk != null) return fromDisk;
+        List<TestCase> generated = new ArrayList<>();
+        for (TestCase tc : generator.get()) {
+            generated.add(tc.copyWithoutId());
+        }
+        writeDisk(key, generated);
+        return generated;
+    }
+
+    // Rethrows what the computing caller threw
+    private static List<TestCase> join(CompletableFuture<List<TestCase>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    private String key(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt.getBytes(StandardCharsets.UTF_8));
+            digest.update((text == null ? "" : text).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<TestCase> readDisk(String key) {
+        if (!properties.getDisk().isEnabled()) return null;
+        Path file = properties.getDisk().getDirectory().resolve(key + ".json");
+        try {
+            Instant expires = Files.getLastModifiedTime(file).toInstant().plus(properties.getTtl());
+            if (Instant.now().isAfter(expires)) {
+                Files.deleteIfExists(file);
+                return null;
+            }
+            List<TestCase> cached = objectMapper.readValue(file.toFile(), TEST_CASE_LIST);
+            diskHits.increment();
+            return cached;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable cache entry {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeDisk(String key, List<TestCase> testCases) {
+        if (!properties.getDisk().isEnabled()) return;
+        Path dir = properties.getDisk().getDirectory();
+        try {
+            Files.createDirectories(dir);
+            // Write then rename, so a crash never leaves a half-written entry behind
+            Path tmp = Files.createTempFile(dir, key, ".tmp");
+            objectMapper.writeValue(tmp.toFile(), testCases);
+            long size = Files.size(tmp);
+            Files.move(tmp, dir.resolve(key + ".json"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            diskWrites.increment();
+            diskBytes.addAndGet(size);
+        } catch (IOException e) {
+            log.warn("Could not write cache entry {}: {}", key, e.getMessage());
+        }
+        long now = System.nanoTime();
+        if ((now - nextSweep >= 0 || diskBytes.get() > properties.getDisk().getMaxSize().toBytes())
+                && sweeping.compareAndSet(false, true)) {
+            try {
+                sweepDisk();
+            } finally {
+                nextSweep = System.nanoTime() + properties.getDisk().getSweepInterval().toNanos();
+                sweeping.set(false);
+            }
+        }
+    }
+
+    /**
+     * Deletes expired entries, then the oldest ones until the directory is back to three quarters of
+     * its budget, so the next few writes do not each trigger another sweep.
+     */
+    private void sweepDisk() {
+        Path dir = properties.getDisk().getDirectory();
+        Instant cutoff = Instant.now().minus(properties.getTtl());
+        List<DiskEntry> entries = new ArrayList<>();
+        long total = 0;
+        try (var files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!isEntry(file)) continue;
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                if (!attributes.isRegularFile()) continue;
+                Instant modified = attributes.lastModifiedTime().toInstant();
+                if (modified.isBefore(cutoff)) {
+                    delete(file);
+                } else {
+                    entries.add(new DiskEntry(file, attributes.size(), modified));
+                    total += attributes.size();
+                }
+            }
+        } catch (NoSuchFileException ignored) {
+            // nothing written yet
+        } catch (IOException e) {
+            log.warn("Could not sweep test case cache directory: {}", e.getMessage());
+            return;
+        }
+        long budget = properties.getDisk().getMaxSize().toBytes();
+        if (total > budget) {
+            entries.sort(Comparator.comparing((DiskEntry entry) -> entry.modified));
+            for (DiskEntry entry : entries) {
+                if (total <= budget / 4 * 3) break;
+                delete(entry.file);
+                total -= entry.size;
+            }
+        }
+        diskBytes.set(total);
+    }
+
+    private static boolean isEntry(Path file) {
+        return ENTRY_FILE.matcher(file.getFileName().toString()).matches();
+    }
+
+    private void delete(Path file) {
+        try {
+            if (Files.deleteIfExists(file)) diskEvictions.increment();
+        } catch (IOException e) {
+            log.warn("Could not delete cache entry {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static int weigh(List<TestCase> testCases) {
+        long weight = 64;
+        for (TestCase tc : testCases) {
+            weight += tc.estimatedSize();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+
+    private static final class DiskEntry {
+        final Path file;
+        final long size;
+        final Instant modified;
+
+        DiskEntry(Path file, long size, Instant modified) {
+            this.file = file;
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.kscribe.service;
+
+import com.kscribe.metrics.Stage;
+import com.kscribe.metrics.StageMetrics;
+import com.kscribe.model.DedupReport;
+import com.kscribe.model.TestCase;
+import com.kscribe.model.TestCaseResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Merges near-duplicate test cases. Each test case is reduced to a set of word shingles over its
+ * normalized preconditions, steps and expected output, with lemmas in place of words and the
+ * generator's fixed labels removed. A MinHash signature of that set is split into LSH bands, so
+ * only test cases sharing a band are compared; a pair is merged when the exact Jaccard similarity
+ * of their sets reaches the threshold. The first test case of a group is kept and records the
+ * requirements and IDs of everything merged into it.
+ */
+@Component
+public class TestCaseDeduplicator {
+    private static final String[] LABELS = {
+            TestCaseGeneratorService.STEP, TestCaseGeneratorService.SYSTEM_REQUIREMENT,
+            TestCaseGeneratorService.ACTION_REQUIRES, TestCaseGeneratorService.EXPECTED_RESULT_FOR};
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final DedupProperties properties;
+    private final StageMetrics stageMetrics;
+    private final long[] seeds;
+    private final int rows;
+
+    public TestCaseDeduplicator(DedupProperties properties, StageMetrics stageMetrics) {
+        this.properties = properties;
+        this.stageMetrics = stageMetrics;
+        // Fixed seed: the same input always merges the same way
+        this.seeds = new SplittableRandom(0x5EEDL).longs(Math.max(1, properties.getHashes())).toArray();
+        this.rows = Math.max(1, seeds.length / Math.max(1, properties.getBands()));
+    }
+
+    /**
+     * Merges near-duplicates across {@code groups}, the test cases of each requirement in request
+     * order. Kept test cases stay in order and keep their IDs.
+     */
+    public TestCaseResponse deduplicate(List<List<TestCase>> groups) {
+        long start = stageMetrics.start();
+        List<TestCase> kept = new ArrayList<>();
+        List<long[]> keptShingles = new ArrayList<>();
+        Map<Long, List<Integer>> buckets = new HashMap<>();
+        int[] checked = new int[16];
+        int generated = 0;
+        for (int r = 0; r < groups.size(); r++) {
+            for (TestCase tc : groups.get(r)) {
+                generated++;
+                long[] shingles = shingles(tc);
+                long[] bandKeys = shingles.length == 0 ? new long[0] : bandKeys(signature(shingles));
+                int match = -1;
+                for (int b = 0; b < bandKeys.length && match < 0; b++) {
+                    List<Integer> candidates = buckets.get(bandKeys[b]);
+                    if (candidates == null) continue;
+                    for (int candidate : candidates) {
+                        // Candidates recur across bands; compare each once per test case
+                        if (checked[candidate] == generated) continue;
+                        checked[candidate] = generated;
+                        long[] other = keptShingles.get(candidate);
+                        // Jaccard similarity is at most the ratio of the set sizes
+                        if (Math.min(shingles.length, other.length) < properties.getThreshold() * Math.max(shingles.length, other.length)) continue;
+                        if (jaccard(shingles, other) >= properties.getThreshold()) {
+                            match = candidate;
+                            break;
+                        }
+                    }
+                }
+                if (match >= 0) {
+                    TestCase survivor = kept.get(match);
+                    survivor.getMergedIds().add(tc.getId());
+                    List<Integer> sources = survivor.getSourceRequirements();
+                    if (sources.get(sources.size() - 1) != r) sources.add(r);
+                    continue;
+                }
+                tc.setSourceRequirements(new ArrayList<>(List.of(r)));
+                tc.setMergedIds(new ArrayList<>());
+                kept.add(tc);
+                keptShingles.add(shingles);
+                if (kept.size() > checked.length) checked = Arrays.copyOf(checked, checked.length * 2);
+                for (long key : bandKeys) {
+                    buckets.computeIfAbsent(key, k -> new ArrayList<>(1)).add(kept.size() - 1);
+                }
+            }
+        }
+        int mergedGroups = 0;
+        for (TestCase tc : kept) {
+            if (!tc.getMergedIds().isEmpty()) mergedGroups++;
+        }
+        stageMetrics.stop(Stage.DEDUPLICATION, start);
+        return new TestCaseResponse(kept, new DedupReport(generated, kept.size(), generated - kept.size(), mergedGroups));
+    }
+
+    // Sorted, distinct hashes of the test case's shingles; a text too short for a full shingle is one shingle
+    private long[] shingles(TestCase tc) {
+        List<String> texts = new ArrayList<>();
+        if (tc.getPreconditions() != null) texts.addAll(tc.getPreconditions());
+        if (tc.getSteps() != null) texts.addAll(tc.getSteps());
+        if (tc.getExpectedOutput() != null) texts.add(tc.getExpectedOutput());
+        int k = Math.max(1, properties.getShingleSize());
+        long[] hashes = new long[16];
+        int count = 0;
+        List<String> words = new ArrayList<>();
+        for (String text : texts) {
+            words.clear();
+            normalize(text, words);
+            if (words.isEmpty()) continue;
+            int shingleCount = Math.max(1, words.size() - k + 1);
+            for (int i = 0; i < shingleCount; i++) {
+                long h = 0x84222325CBF29CE4L;
+                for (int j = i; j < Math.min(i + k, words.size()); j++) {
+                    h = mix(h * 0x100000001B3L + fnv(words.get(j)));
+                }
+                if (count == hashes.length) hashes = Arrays.copyOf(hashes, count * 2);
+                hashes[count++] = h;
+            }
+        }
+        long[] sorted = Arrays.copyOf(hashes, count);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) sorted[distinct++] = sorted[i];
+        }
+        return Arrays.copyOf(sorted, distinct);
+    }
+
+    // Lower-cased words with generator labels dropped; "token:lemma" step words count as their lemma
+    private static void normalize(String text, List<String> words) {
+        for (String label : LABELS) {
+            if (text.startsWith(label)) {
+                text = text.substring(label.length());
+                break;
+            }
+        }
+        for (String token : WHITESPACE.split(text.toLowerCase(Locale.ROOT))) {
+            int colon = token.lastIndexOf(':');
+            if (colon > 0 && colon < token.length() - 1 && !token.endsWith(":o")) token = token.substring(colon + 1);
+            else if (colon > 0) token = token.substring(0, colon);
+            int start = 0;
+            int end = token.length();
+            while (start < end && !Character.isLetterOrDigit(token.charAt(start))) start++;
+            while (end > start && !Character.isLetterOrDigit(token.charAt(end - 1))) end--;
+            if (start < end) words.add(token.substring(start, end));
+        }
+    }
+
+    private long[] signature(long[] shingles) {
+        long[] signature = new long[seeds.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (long shingle : shingles) {
+            for (int i = 0; i < seeds.length; i++) {
+                long h = mix(shingle ^ seeds[i]);
+                if (h < signature[i]) signature[i] = h;
+            }
+        }
+        return signature;
+    }
+
+    private long[] bandKeys(long[] signature) {
+        long[] keys = new long[signature.length / rows];
+        for (int b = 0; b < keys.length; b++) {
+            long h = b;
+            for (int i = b * rows; i < (b + 1) * rows; i++) {
+                h = mix(h * 31 + signature[i]);
+            }
+            keys[b] = h;
+        }
+        return keys;
+    }
+
+    // Exact Jaccard similarity of two sorted, distinct hash sets
+    private static double jaccard(long[] a, long[] b) {
+        if (a.length == 0 && b.length == 0) return 1;
+        int common = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) common / (a.length + b.length - common);
+    }
+
+    private static long fnv(String word) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < word.length(); i++) {
+            h = (h ^ word.charAt(i)) * 0x100000001B3L;
+        }
+        return h;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,75 +1,248 @@
 package com.kscribe.service;
 
+import com.kscribe.metrics.Stage;
+import com.kscribe.metrics.StageMetrics;
 import com.kscribe.model.Requirement;
+import com.kscribe.model.Severity;
+import com.kscribe.model.TagSet;
 import com.kscribe.model.TestCase;
+import com.kscribe.model.Text;
+import com.kscribe.model.TextList;
+import com.kscribe.nlp.AnnotatedText;
+import com.kscribe.nlp.Entity;
+import com.kscribe.nlp.EntityGazetteer;
 import com.kscribe.nlp.NlpService;
+import com.kscribe.rules.ClauseFeatures;
+import com.kscribe.rules.ConditionParser;
+import com.kscribe.rules.ConditionTree;
+import com.kscribe.rules.Feature;
+import com.kscribe.rules.KeywordRuleEngine;
+import com.kscribe.rules.TagRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 @Service
 @RequiredArgsConstructor
 public class TestCaseGeneratorService {
+    private static final Pattern CLAUSE_SPLIT = Pattern.compile(" and | and|and | or | or|or |;|\\.|,");
+    private static final Pattern STEP_SPLIT = Pattern.compile(" and |,|;|\\. ");
+    private static final Pattern THEN_ELSE_SPLIT = Pattern.compile("then|else");
+    private static final Pattern STEP_LABEL = Pattern.compile("step:", Pattern.LITERAL);
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[;.]$");
+    private static final Feature[] MODALS = {Feature.MODAL_SHOULD, Feature.MODAL_MUST, Feature.MODAL_CAN, Feature.MODAL_WILL, Feature.MODAL_SHALL};
+    // Checked in order; the first matching keyword family names the test case
+    private static final Map<Feature, Text> TITLES = new LinkedHashMap<>();
+    // Constant texts and prefixes are shared by every test case that uses them
+    private static final Text DEFAULT_SCENARIO = Text.of("Default scenario");
+    private static final Text TEST_CASE = Text.of("Test Case");
+    private static final Text ERROR_DISPLAYED = Text.of("Error message displayed");
+    private static final Text OPERATION_SUCCESSFUL = Text.of("Operation successful");
+    private static final String NEGATIVE_SCENARIO = "Negative scenario: ";
+    private static final String CONDITIONAL_SCENARIO = "Conditional scenario: ";
+    private static final String NEGATIVE = "Negative: ";
+    // Labels TestCaseDeduplicator ignores when comparing test cases
+    static final String EXPECTED_RESULT_FOR = "Expected result for: ";
+    static final String SYSTEM_REQUIREMENT = "System requirement: ";
+    static final String ACTION_REQUIRES = "Action requires: ";
+    static final String STEP = "Step: ";
+
+    static {
+        TITLES.put(Feature.TITLE_LOGIN, Text.of("Validate login"));
+        TITLES.put(Feature.TITLE_REGISTER, Text.of("User registration"));
+        TITLES.put(Feature.TITLE_RESET, Text.of("Password reset"));
+        TITLES.put(Feature.TITLE_ERROR, Text.of("Error handling"));
+        TITLES.put(Feature.TITLE_WARNING, Text.of("Warning scenario"));
+        TITLES.put(Feature.TITLE_ACCESS, Text.of("Access control"));
+    }
+
     private final NlpService nlpService;
+    private final ExecutorService generationExecutor;
+    private final KeywordRuleEngine ruleEngine;
+    private final EntityGazetteer entityGazetteer;
+    private final TagRegistry tagRegistry;
+    private final TestCaseCache testCaseCache;
+    private final StageMetrics stageMetrics;
+
+    @Value("${kscribe.generator.parallel.enabled:true}")
+    private boolean parallelEnabled;
+    @Value("${kscribe.generator.parallel.threshold:256}")
+    private int parallelThreshold;
+    @Value("${kscribe.generator.parallel.chunks-per-thread:4}")
+    private int chunksPerThread;
 
     public List<TestCase> generateTestCases(List<Requirement> requirements) {
         List<TestCase> testCases = new ArrayList<>();
+        if (parallelEnabled && requirements.size() >= parallelThreshold) {
+            for (List<TestCase> group : generateParallel(requirements)) {
+                testCases.addAll(group);
+            }
+        } else {
+            for (Requirement req : requirements) {
+                testCases.addAll(generateForRequirement(req));
+            }
+        }
+        // IDs are assigned afterwards in input order, so the parallel path numbers exactly like the sequential one
         int counter = 1;
-        for (Requirement req : requirements) {
-            List<String> sentences = nlpService.sentences(req.getText());
-            for (String sentence : sentences) {
-                // Check for conditional logic: if/then/else/else if
-                if (sentence.toLowerCase().contains("if ") && (sentence.toLowerCase().contains("then") || sentence.toLowerCase().contains("else"))) {
-                    // Parse logic tree
-                    List<ConditionalBranch> branches = parseConditionTree(sentence);
-                    for (ConditionalBranch branch : branches) {
-                        TestCase tc = new TestCase();
-                        tc.setId("TC" + counter++);
-                        tc.setTitle(branch.title);
-                        tc.setDescription(branch.condition);
-                        tc.setPreconditions(Collections.singletonList(branch.condition));
-                        tc.setSteps(Collections.singletonList("Step: " + branch.action));
-                        tc.setExpectedOutput(branch.expectedOutput);
-                        tc.setSeverity(branch.severity);
-                        tc.setTags(branch.tags);
-                        testCases.add(tc);
+        for (TestCase tc : testCases) {
+            tc.setId("TC" + counter++);
+        }
+        return testCases;
+    }
+
+    /**
+     * Streaming variant of {@link #generateTestCases(List)}: each requirement's test cases are
+     * numbered and handed to the sink as soon as that requirement is done, so neither the input
+     * nor the output is held in full. With parallel generation on, requirements are read ahead
+     * one window of {@code kscribe.generator.parallel.threshold} at a time.
+     * Returns the number of test cases emitted.
+     */
+    public int generateTestCases(Iterator<Requirement> requirements, Consumer<List<TestCase>> sink) {
+        int windowSize = parallelEnabled ? Math.max(1, parallelThreshold) : 1;
+        List<Requirement> window = new ArrayList<>(Math.min(windowSize, 1024));
+        int counter = 1;
+        while (requirements.hasNext()) {
+            window.clear();
+            while (window.size() < windowSize && requirements.hasNext()) {
+                window.add(requirements.next());
+            }
+            List<List<TestCase>> groups = parallelEnabled && window.size() >= parallelThreshold ? generateParallel(window) : null;
+            for (int i = 0; i < window.size(); i++) {
+                List<TestCase> group = groups != null ? groups.get(i) : generateForRequirement(window.get(i));
+                for (TestCase tc : group) {
+                    tc.setId("TC" + counter++);
+                }
+                sink.accept(group);
+            }
+        }
+        return counter - 1;
+    }
+
+    // Requirements are independent, so contiguous chunks run on the executor and are joined back in order
+    private List<List<TestCase>> generateParallel(List<Requirement> requirements) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (generationExecutor instanceof ForkJoinPool) threads = ((ForkJoinPool) generationExecutor).getParallelism();
+        int chunkCount = Math.max(1, Math.min(requirements.size(), threads * chunksPerThread));
+        int chunkSize = (requirements.size() + chunkCount - 1) / chunkCount;
+        List<Future<List<List<TestCase>>>> chunks = new ArrayList<>();
+        for (int from = 0; from < requirements.size(); from += chunkSize) {
+            List<Requirement> chunk = requirements.subList(from, Math.min(from + chunkSize, requirements.size()));
+            chunks.add(generationExecutor.submit(stageMetrics.propagate(() -> {
+                List<List<TestCase>> groups = new ArrayList<>(chunk.size());
+                for (Requirement req : chunk) {
+                    groups.add(generateForRequirement(req));
+                }
+                return groups;
+            })));
+        }
+        List<List<TestCase>> groups = new ArrayList<>(requirements.size());
+        try {
+            for (Future<List<List<TestCase>>> chunk : chunks) {
+                groups.addAll(chunk.get());
+            }
+        } catch (InterruptedException e) {
+            chunks.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating test cases", e);
+        } catch (ExecutionException e) {
+            chunks.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException("Test case generation failed", e.getCause());
+        }
+        return groups;
+    }
+
+    /** Test cases for a single requirement, in output order and without IDs. */
+    public List<TestCase> generateForRequirement(Requirement req) {
+        long start = stageMetrics.start();
+        List<TestCase> testCases = testCaseCache.isEnabled()
+                ? testCaseCache.get(req.getText(), () -> computeForRequirement(req))
+                : computeForRequirement(req);
+        stageMetrics.stop(Stage.REQUIREMENT, start);
+        stageMetrics.countRequirement(testCases.size());
+        return testCases;
+    }
+
+    private List<TestCase> computeForRequirement(Requirement req) {
+        List<TestCase> testCases = new ArrayList<>();
+        AnnotatedText doc = nlpService.annotate(req.getText());
+        for (int s = 0; s < doc.sentenceCount(); s++) {
+            String sentence = doc.sentence(s);
+            int sentenceStart = doc.sentenceStart(s);
+            // Conditional sentences (if/when/unless … else if … otherwise) get one test case per branch
+            long start = stageMetrics.start();
+            List<ConditionalBranch> branches = parseConditionTree(doc, s);
+            stageMetrics.stop(Stage.CONDITION_TREE, start);
+            if (!branches.isEmpty()) {
+                for (ConditionalBranch branch : branches) {
+                    TestCase tc = new TestCase();
+                    tc.setTitle(branch.title);
+                    tc.setDescription(branch.condition);
+                    tc.setPreconditions(branch.preconditions);
+                    tc.setSteps(TextList.of(Text.of(STEP, branch.action)));
+                    tc.setExpectedOutput(branch.expectedOutput);
+                    tc.setSeverity(branch.severity);
+                    tc.setTags(branch.tags);
+                    testCases.add(tc);
+                }
+            } else {
+                // Fallback: use clause splitting as before
+                start = stageMetrics.start();
+                List<int[]> clauses = segments(CLAUSE_SPLIT, sentence);
+                stageMetrics.stop(Stage.CLAUSE_SPLITTING, start);
+                for (int[] span : clauses) {
+                    String clause = sentence.substring(span[0], span[1]);
+                    int clauseStart = sentenceStart + span[0];
+                    // Separators can fall inside a word (e.g. "or " in "error"); such clauses need their own pass
+                    AnnotatedText clauseDoc = doc;
+                    if (doc.cutsToken(clauseStart, clauseStart + clause.length())) {
+                        clauseDoc = nlpService.annotate(clause);
+                        clauseStart = 0;
                     }
-                } else {
-                    // Fallback: use clause splitting as before
-                    String[] clauses = sentence.split(" and | and|and | or | or|or |;|\\.|,");
-                    for (String clause : clauses) {
-                        clause = clause.trim();
-                        if (clause.isEmpty()) continue;
-                        boolean isNegation = detectNegation(clause);
-                        boolean isConditional = detectConditional(clause);
-                        TestCase tc = new TestCase();
-                        tc.setId("TC" + counter++);
-                        tc.setTitle(generateTitle(clause, isNegation, isConditional));
-                        tc.setDescription(clause);
-                        tc.setPreconditions(generatePreconditions(clause));
-                        tc.setSteps(generateSteps(clause, isConditional));
-                        tc.setExpectedOutput(generateExpected(clause, isNegation));
-                        tc.setSeverity(detectSeverity(clause));
-                        tc.setTags(generateTags(clause, isNegation, isConditional));
-                        testCases.add(tc);
-                        if (!isNegation) {
-                            String negated = negateSentence(clause);
-                            if (!negated.equals(clause)) {
-                                TestCase negTc = new TestCase();
-                                negTc.setId("TC" + counter++);
-                                negTc.setTitle("Negative: " + generateTitle(negated, true, isConditional));
-                                negTc.setDescription(negated);
-                                negTc.setPreconditions(generatePreconditions(negated));
-                                negTc.setSteps(generateSteps(negated, isConditional));
-                                negTc.setExpectedOutput("Error message displayed");
-                                negTc.setSeverity("High");
-                                negTc.setTags(generateTags(negated, true, isConditional));
-                                testCases.add(negTc);
-                            }
+                    ClauseFeatures features = ruleEngine.match(clause);
+                    boolean isNegation = features.has(Feature.NEGATION);
+                    boolean isConditional = features.has(Feature.CONDITIONAL);
+                    List<Entity> entities = entitiesWithin(clauseDoc, clauseStart, clause);
+                    TestCase tc = new TestCase();
+                    tc.setTitle(generateTitle(clause, features, isNegation, isConditional));
+                    tc.setDescription(clause);
+                    tc.setPreconditions(generatePreconditions(clause, features, clauseDoc, clauseStart, entities));
+                    tc.setSteps(generateSteps(clause, clauseDoc, clauseStart, isConditional));
+                    tc.setExpectedOutput(generateExpected(clause, features, isNegation));
+                    tc.setSeverity(detectSeverity(features));
+                    tc.setTags(generateTags(features, isNegation, isConditional, entities));
+                    testCases.add(tc);
+                    if (!isNegation) {
+                        String negated = negateSentence(clause, features);
+                        if (!negated.equals(clause)) {
+                            // The negated clause is new text, so it gets its own single annotation pass
+                            AnnotatedText negatedDoc = nlpService.annotate(negated);
+                            ClauseFeatures negatedFeatures = ruleEngine.match(negated);
+                            List<Entity> negatedEntities = entitiesWithin(negatedDoc, 0, negated);
+                            TestCase negTc = new TestCase();
+                            negTc.setTitle(generateTitle(negated, negatedFeatures, true, isConditional).prefixed(NEGATIVE));
+                            negTc.setDescription(negated);
+                            negTc.setPreconditions(generatePreconditions(negated, negatedFeatures, negatedDoc, 0, negatedEntities));
+                            negTc.setSteps(generateSteps(negated, negatedDoc, 0, isConditional));
+                            negTc.setExpectedOutput(ERROR_DISPLAYED);
+                            negTc.setSeverity(Severity.HIGH);
+                            negTc.setTags(generateTags(negatedFeatures, true, isConditional, negatedEntities));
+                            testCases.add(negTc);
                         }
                     }
                 }
@@ -80,187 +253,269 @@ public class TestCaseGeneratorService {
 
     // Helper class for conditional branches
     private static class ConditionalBranch {
-        String title;
+        Text title;
         String condition;
         String action;
-        String expectedOutput;
-        String severity;
-        List<String> tags;
+        List<String> preconditions;
+        Text expectedOutput;
+        Severity severity;
+        TagSet tags;
     }
 
-    // Parse a logic tree from a conditional sentence
-    private List<ConditionalBranch> parseConditionTree(String sentence) {
+    /**
+     * Branches of a conditional sentence, one per consequence, or none when the sentence has no
+     * branch structure. Each branch's preconditions are the conditions on its path through nested
+     * conditionals.
+     */
+    private List<ConditionalBranch> parseConditionTree(AnnotatedText doc, int sentence) {
+        ConditionTree tree = ConditionParser.parse(doc, sentence);
+        if (!tree.hasBranches()) return Collections.emptyList();
         List<ConditionalBranch> branches = new ArrayList<>();
-        String lower = sentence.toLowerCase();
-        // Split on 'else if', 'else', and 'if'
-        String[] parts = lower.split("else if|else|if ");
-        List<String> keywords = new ArrayList<>();
-        int idx = 0;
-        while (idx < lower.length()) {
-            if (lower.startsWith("if ", idx)) { keywords.add("if"); idx += 3; }
-            else if (lower.startsWith("else if", idx)) { keywords.add("else if"); idx += 7; }
-            else if (lower.startsWith("else", idx)) { keywords.add("else"); idx += 4; }
-            else { idx++; }
-        }
-        for (int i = 0; i < parts.length; i++) {
-            String part = parts[i].trim();
-            if (part.isEmpty()) continue;
-            ConditionalBranch branch = new ConditionalBranch();
-            String keyword = (i < keywords.size()) ? keywords.get(i) : "";
-            if (keyword.equals("if") || keyword.equals("else if")) {
-                // Try to split on 'then'
-                String[] condAction = part.split("then", 2);
-                branch.condition = condAction[0].trim();
-                branch.action = condAction.length > 1 && !condAction[1].trim().isEmpty() ? condAction[1].trim() : condAction[0].trim();
-            } else if (keyword.equals("else")) {
-                branch.condition = "otherwise";
-                branch.action = part;
-                // Use action as description and precondition for 'otherwise'
-                branch.condition = branch.action;
-            } else {
-                branch.condition = part;
-                branch.action = part;
-            }
-            // Fallbacks for empty action/condition
-            if (branch.action == null || branch.action.isEmpty()) branch.action = branch.condition;
-            if (branch.condition == null || branch.condition.isEmpty()) branch.condition = branch.action;
-            // Heuristics for title, output, severity, tags
-            branch.title = generateTitle(branch.action, detectNegation(branch.action), detectConditional(branch.action));
-            branch.expectedOutput = generateExpected(branch.action, detectNegation(branch.action));
-            branch.severity = detectSeverity(branch.action);
-            branch.tags = generateTags(branch.action, detectNegation(branch.action), detectConditional(branch.action));
-            branches.add(branch);
+        List<ConditionTree.Conditional> conditionals = tree.getConditionals();
+        String prefix = tree.getPrefix();
+        // "show an error if x; otherwise y": the text in front is the first arm's consequence
+        ConditionTree.Arm postfix = conditionals.get(0).getArms().get(0);
+        boolean prefixIsAction = prefix != null && postfix.getAction() == null;
+        if (prefix != null && !prefixIsAction) addBranch(branches, List.of(), prefix, prefix);
+        List<String> path = new ArrayList<>();
+        for (ConditionTree.Conditional conditional : conditionals) {
+            addBranches(branches, path, conditional, prefixIsAction ? prefix : null);
+            prefixIsAction = false;
         }
         return branches;
     }
 
-    private boolean detectNegation(String sentence) {
-        String s = sentence.toLowerCase();
-        return s.contains("not ") || s.contains("should not") || s.contains("must not") || s.contains("cannot") || s.contains("can't") || s.contains("won't") || s.contains("never");
+    private void addBranches(List<ConditionalBranch> branches, List<String> path, ConditionTree.Conditional conditional,
+                             String postfixAction) {
+        for (ConditionTree.Arm arm : conditional.getArms()) {
+            String action = arm.getAction();
+            if (action == null) action = postfixAction != null ? postfixAction : arm.getCondition();
+            postfixAction = null;
+            String condition;
+            switch (arm.getKind()) {
+                case UNLESS:
+                    condition = "unless " + arm.getCondition();
+                    break;
+                case ELSE:
+                    // An 'otherwise' branch is described by its action
+                    condition = action;
+                    break;
+                default:
+                    condition = arm.getCondition();
+                    break;
+            }
+            if (condition.isEmpty()) condition = action;
+            if (!action.isEmpty()) addBranch(branches, path, condition, action);
+            if (!arm.getNested().isEmpty()) {
+                path.add(condition);
+                for (ConditionTree.Conditional nested : arm.getNested()) {
+                    addBranches(branches, path, nested, null);
+                }
+                path.remove(path.size() - 1);
+            }
+        }
     }
 
-    private boolean detectConditional(String sentence) {
-        return Pattern.compile("\\bif ", Pattern.CASE_INSENSITIVE).matcher(sentence).find();
+    private void addBranch(List<ConditionalBranch> branches, List<String> path, String condition, String action) {
+        ConditionalBranch branch = new ConditionalBranch();
+        branch.condition = condition;
+        branch.action = action;
+        // Heuristics for title, output, severity, tags
+        ClauseFeatures features = ruleEngine.match(action);
+        boolean isNegation = features.has(Feature.NEGATION);
+        branch.title = generateTitle(action, features, isNegation, features.has(Feature.CONDITIONAL));
+        branch.expectedOutput = generateExpected(action, features, isNegation);
+        branch.severity = detectSeverity(features);
+        // Branches are slices of the sentence, so their entities are matched on the plain words
+        List<Entity> entities = entityGazetteer.find(condition);
+        if (!condition.equals(action)) {
+            for (Entity entity : entityGazetteer.find(action)) {
+                if (!entities.contains(entity)) entities.add(entity);
+            }
+        }
+        List<Text> preconditions = new ArrayList<>(path.size() + 1 + entities.size());
+        for (String outer : path) {
+            preconditions.add(Text.of(outer));
+        }
+        preconditions.add(Text.of(condition));
+        for (Entity entity : entities) {
+            preconditions.add(entity.getPrecondition());
+        }
+        branch.preconditions = TextList.of(preconditions);
+        // Keyword tags, like entities, come from the whole branch: "invalid email" in the condition is an edge case
+        ClauseFeatures tagFeatures = condition.equals(action) ? features : ruleEngine.match(condition + " " + action);
+        branch.tags = generateTags(tagFeatures, isNegation, features.has(Feature.CONDITIONAL), entities);
+        branches.add(branch);
     }
 
-    private String negateSentence(String sentence) {
+    private String negateSentence(String sentence, ClauseFeatures features) {
         // Simple negation for demo: add 'not' after first modal verb
-        String[] modals = {"should", "must", "can", "will", "shall"};
-        for (String modal : modals) {
-            int idx = sentence.toLowerCase().indexOf(modal);
+        for (Feature modal : MODALS) {
+            int idx = features.firstIndex(modal);
             if (idx != -1) {
-                return sentence.substring(0, idx + modal.length()) + " not" + sentence.substring(idx + modal.length());
+                int end = idx + modal.getKeywords()[0].length();
+                return sentence.substring(0, end) + " not" + sentence.substring(end);
             }
         }
         return sentence;
     }
 
-    private List<String> generatePreconditions(String sentence) {
-        List<String> preconditions = new ArrayList<>();
-        String s = sentence.toLowerCase();
+    // Distinct entities mentioned in text, which starts at offset in the annotated text, in order;
+    // without a tokenizer there are no tokens, so the dictionary is matched on the plain words
+    private List<Entity> entitiesWithin(AnnotatedText doc, int offset, String text) {
+        if (doc.tokenCount() == 0) return entityGazetteer.find(text);
+        if (doc.entityCount() == 0) return Collections.emptyList();
+        int first = doc.firstTokenAt(offset);
+        int end = doc.tokenEndWithin(offset, offset + text.length());
+        List<Entity> entities = new ArrayList<>(2);
+        for (int i = 0; i < doc.entityCount(); i++) {
+            if (doc.entityStart(i) >= first && doc.entityEnd(i) <= end && !entities.contains(doc.entity(i))) {
+                entities.add(doc.entity(i));
+            }
+        }
+        return entities;
+    }
+
+    private List<String> generatePreconditions(String sentence, ClauseFeatures features, AnnotatedText doc, int offset,
+                                               List<Entity> entities) {
+        List<Text> preconditions = new ArrayList<>();
         // Extract 'if' clauses as preconditions
-        if (s.contains("if ")) {
-            int idx = s.indexOf("if ");
-            int thenIdx = s.indexOf("then", idx);
+        if (features.has(Feature.IF)) {
+            int idx = features.firstIndex(Feature.IF);
+            int thenIdx = sentence.toLowerCase().indexOf("then", idx);
             if (thenIdx != -1) {
-                preconditions.add(sentence.substring(idx, thenIdx).trim());
+                preconditions.add(Text.of(sentence.substring(idx, thenIdx).trim()));
             } else {
-                preconditions.add(sentence.substring(idx).trim());
+                preconditions.add(Text.of(sentence.substring(idx).trim()));
             }
         }
         // Heuristic: look for explicit requirements (must, should, required)
-        if (s.contains("must ") || s.contains("should ") || s.contains("required")) {
-            preconditions.add("System requirement: " + sentence);
+        if (features.has(Feature.REQUIREMENT)) {
+            preconditions.add(Text.of(SYSTEM_REQUIREMENT, sentence));
         }
-        // Use POS tags to find modal verbs as preconditions
-        List<String> posTags = nlpService.posTag(sentence);
-        for (String tagged : posTags) {
-            if (tagged.contains("MD")) { // Modal verb
-                preconditions.add("Action requires: " + tagged.split("/")[0]);
+        // Use the POS tags already on the annotated text to find modal verbs as preconditions
+        if (doc.hasTags()) {
+            int end = doc.tokenEndWithin(offset, offset + sentence.length());
+            for (int i = doc.firstTokenAt(offset); i < end; i++) {
+                if (doc.tag(i).contains("MD")) { // Modal verb
+                    preconditions.add(Text.of(ACTION_REQUIRES, doc.token(i)));
+                }
             }
         }
-        return preconditions;
+        // Dictionary entities the clause mentions, e.g. "Field: email"
+        for (Entity entity : entities) {
+            preconditions.add(entity.getPrecondition());
+        }
+        return TextList.of(preconditions);
     }
 
-    private List<String> generateSteps(String sentence, boolean isConditional) {
+    private List<String> generateSteps(String sentence, AnnotatedText doc, int offset, boolean isConditional) {
         List<String> steps = new ArrayList<>();
+        // Step bodies only; every step shares the "Step: " prefix
         // Use punctuation and conjunctions to split steps
-        String[] splitByAnd = sentence.split(" and |,|;|\\. ");
-        for (String part : splitByAnd) {
-            String trimmed = part.trim();
-            if (!trimmed.isEmpty()) {
-                // Use lemmatization to normalize the action
-                List<String> lemmas = nlpService.lemmatize(trimmed);
-                String lemmaStep = String.join(" ", lemmas);
-                steps.add("Step: " + lemmaStep);
+        for (int[] span : segments(STEP_SPLIT, sentence)) {
+            // Use the lemmas already on the annotated text to normalize the action
+            AnnotatedText partDoc = doc;
+            int start = offset + span[0];
+            int end = offset + span[1];
+            if (doc.cutsToken(start, end)) {
+                partDoc = nlpService.annotate(sentence.substring(span[0], span[1]));
+                start = 0;
+                end = span[1] - span[0];
             }
+            StringBuilder lemmaStep = new StringBuilder();
+            int first = partDoc.firstTokenAt(start);
+            int last = partDoc.tokenEndWithin(start, end);
+            for (int i = first; i < last; i++) {
+                if (i > first) lemmaStep.append(' ');
+                lemmaStep.append(partDoc.token(i));
+                if (partDoc.hasLemmas()) lemmaStep.append(':').append(partDoc.lemma(i));
+            }
+            steps.add(lemmaStep.toString());
         }
         // For conditionals, also split on 'then', 'else'
         if (isConditional) {
-            String[] parts = sentence.split("then|else", -1);
+            String[] parts = THEN_ELSE_SPLIT.split(sentence, -1);
             for (String part : parts) {
                 String trimmed = part.trim();
-                if (!trimmed.isEmpty() && !steps.contains("Step: " + trimmed)) {
-                    steps.add("Step: " + trimmed);
+                if (!trimmed.isEmpty() && !steps.contains(trimmed)) {
+                    steps.add(trimmed);
                 }
             }
         }
-        return steps;
+        List<Text> texts = new ArrayList<>(steps.size());
+        for (String step : steps) {
+            texts.add(Text.of(STEP, step));
+        }
+        return TextList.of(texts);
     }
 
-    private String generateTitle(String sentence, boolean isNegation, boolean isConditional) {
-        String s = sentence == null ? "" : sentence.toLowerCase();
-        if (s.isEmpty() || s.equals("step:") || s.equals("otherwise")) return "Default scenario";
-        if (isNegation) return "Negative scenario: " + summarize(s);
-        if (isConditional) return "Conditional scenario: " + summarize(s);
-        if (s.contains("login")) return "Validate login";
-        if (s.contains("register")) return "User registration";
-        if (s.contains("reset")) return "Password reset";
-        if (s.contains("error")) return "Error handling";
-        if (s.contains("warning")) return "Warning scenario";
-        if (s.contains("access")) return "Access control";
+    // Trimmed, non-empty [start, end) spans of the text between matches of the separator
+    private static List<int[]> segments(Pattern separator, String text) {
+        List<int[]> spans = new ArrayList<>();
+        Matcher m = separator.matcher(text);
+        int from = 0;
+        while (from <= text.length()) {
+            int to = m.find() ? m.start() : text.length();
+            int start = from;
+            int end = to;
+            while (start < end && text.charAt(start) <= ' ') start++;
+            while (end > start && text.charAt(end - 1) <= ' ') end--;
+            if (start < end) spans.add(new int[] {start, end});
+            if (to == text.length()) break;
+            from = m.end();
+        }
+        return spans;
+    }
+
+    private Text generateTitle(String sentence, ClauseFeatures features, boolean isNegation, boolean isConditional) {
+        if (sentence == null || sentence.isEmpty() || sentence.equalsIgnoreCase("step:") || sentence.equalsIgnoreCase("otherwise")) return DEFAULT_SCENARIO;
+        if (isNegation) return summarize(sentence.toLowerCase()).prefixed(NEGATIVE_SCENARIO);
+        if (isConditional) return summarize(sentence.toLowerCase()).prefixed(CONDITIONAL_SCENARIO);
+        for (Map.Entry<Feature, Text> title : TITLES.entrySet()) {
+            if (features.has(title.getKey())) return title.getValue();
+        }
+        String s = sentence.toLowerCase();
         if (s.length() > 30) return summarize(s);
         return capitalizeFirst(s);
     }
 
-    private String summarize(String s) {
-        s = s.replaceAll("step:", "").replaceAll("[;.]$", "").trim();
+    private Text summarize(String s) {
+        s = TRAILING_PUNCTUATION.matcher(STEP_LABEL.matcher(s).replaceAll("")).replaceAll("").trim();
         return capitalizeFirst(s);
     }
 
-    private String capitalizeFirst(String s) {
-        if (s == null || s.isEmpty()) return "Test Case";
-        return s.substring(0, 1).toUpperCase() + s.substring(1);
+    private Text capitalizeFirst(String s) {
+        if (s == null || s.isEmpty()) return TEST_CASE;
+        return Text.of(s.substring(0, 1).toUpperCase() + s.substring(1));
     }
 
-    private String generateExpected(String sentence, boolean isNegation) {
-        if (isNegation) return "Error message displayed";
-        if (sentence.toLowerCase().contains("error")) return "Error message displayed";
-        if (sentence.toLowerCase().contains("success")) return "Operation successful";
-        return "Expected result for: " + sentence;
+    private Text generateExpected(String sentence, ClauseFeatures features, boolean isNegation) {
+        if (isNegation) return ERROR_DISPLAYED;
+        if (features.has(Feature.EXPECT_ERROR)) return ERROR_DISPLAYED;
+        if (features.has(Feature.EXPECT_SUCCESS)) return OPERATION_SUCCESSFUL;
+        return Text.of(EXPECTED_RESULT_FOR, sentence);
     }
 
-    private String detectSeverity(String sentence) {
-        String s = sentence.toLowerCase();
-        if (s.contains("security") || s.contains("critical") || s.contains("must not")) return "High";
-        if (s.contains("should not") || s.contains("error")) return "Medium";
-        return "Low";
+    private Severity detectSeverity(ClauseFeatures features) {
+        if (features.has(Feature.SEVERITY_HIGH)) return Severity.HIGH;
+        if (features.has(Feature.SEVERITY_MEDIUM)) return Severity.MEDIUM;
+        return Severity.LOW;
     }
 
-    private List<String> generateTags(String sentence, boolean isNegation, boolean isConditional) {
-        List<String> tags = new ArrayList<>();
-        String s = sentence.toLowerCase();
-        if (isNegation) tags.add("negative");
-        if (isConditional) tags.add("conditional");
-        if (s.contains("security")) tags.add("security");
-        if (s.contains("edge") || s.contains("empty") || s.contains("invalid") || s.contains("expired")) tags.add("edge-case");
-        // Add tags for detected entities (user, email, password, etc.)
-        if (s.contains("user")) tags.add("user");
-        if (s.contains("email")) tags.add("email");
-        if (s.contains("password")) tags.add("password");
-        if (s.contains("registration")) tags.add("registration");
-        if (s.contains("login")) tags.add("login");
-        if (s.contains("reset")) tags.add("reset");
-        return tags;
+    private TagSet generateTags(ClauseFeatures features, boolean isNegation, boolean isConditional, List<Entity> entities) {
+        BitSet tags = new BitSet();
+        if (isNegation) tags.set(tagRegistry.negative());
+        if (isConditional) tags.set(tagRegistry.conditional());
+        // Keyword tags (security, edge-case, configured tags) and dictionary entities, e.g. user, email;
+        // the registry lists them in output order
+        int ruleTags = ruleEngine.tagNames().size();
+        for (int i = 0; i < ruleTags; i++) {
+            if (features.hasTag(i)) tags.set(tagRegistry.ruleTag(i));
+        }
+        for (Entity entity : entities) {
+            tags.set(tagRegistry.entityTag(entity));
+        }
+        return tagRegistry.tags(tags);
     }
-} 
\ No newline at end of file
+}
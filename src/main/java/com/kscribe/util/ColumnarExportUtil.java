@@ -0,0 +1,45 @@
+package com.kscribe.util;
+
+import com.kscribe.columnar.ColumnarProperties;
+import com.kscribe.columnar.ColumnarReader;
+import com.kscribe.columnar.ColumnarWriter;
+import com.kscribe.model.TestCase;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+@Component
+@RequiredArgsConstructor
+public class ColumnarExportUtil {
+    private final ColumnarProperties properties;
+
+    /** Opens a columnar writer on the stream, compressed as configured. */
+    public ColumnarWriter openWriter(OutputStream out) throws IOException {
+        return openWriter(out, properties.isCompression());
+    }
+
+    public ColumnarWriter openWriter(OutputStream out, boolean compress) throws IOException {
+        return new ColumnarWriter(out, properties.getBlockRows(), compress ? properties.getCompressionLevel() : -1,
+                properties.getMaxDictionarySize(), maxBlockSize());
+    }
+
+    public void writeTestCase(ColumnarWriter writer, TestCase tc) {
+        try {
+            writer.write(tc);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public ColumnarReader openReader(InputStream in) throws IOException {
+        return new ColumnarReader(in, maxBlockSize());
+    }
+
+    private int maxBlockSize() {
+        return (int) Math.min(Integer.MAX_VALUE - 8, properties.getMaxBlockSize().toBytes());
+    }
+}
@@ -4,31 +4,50 @@ import com.kscribe.model.TestCase;
 import com.opencsv.CSVWriter;
 import org.springframework.stereotype.Component;
 
-import java.io.StringWriter;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @Component
 public class CsvExportUtil {
+    private static final String[] HEADER = {"ID", "Title", "Description", "Preconditions", "Steps", "Expected Output", "Severity", "Tags"};
+
     public byte[] exportTestCasesToCsv(List<TestCase> testCases) {
-        StringWriter writer = new StringWriter();
-        CSVWriter csvWriter = new CSVWriter(writer);
-        String[] header = {"ID", "Title", "Description", "Preconditions", "Steps", "Expected Output", "Severity", "Tags"};
-        csvWriter.writeNext(header);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CSVWriter csvWriter = openCsvWriter(out);
         for (TestCase tc : testCases) {
-            csvWriter.writeNext(new String[] {
-                    tc.getId(),
-                    tc.getTitle(),
-                    tc.getDescription(),
-                    String.join("; ", tc.getPreconditions()),
-                    String.join("; ", tc.getSteps()),
-                    tc.getExpectedOutput(),
-                    tc.getSeverity(),
-                    tc.getTags() == null ? "" : String.join(", ", tc.getTags())
-            });
+            writeTestCase(csvWriter, tc);
         }
         try {
             csvWriter.close();
-        } catch (Exception ignored) {}
-        return writer.toString().getBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /** Opens a UTF-8 CSV writer on the stream and writes the header row; rows are buffered, not held. */
+    public CSVWriter openCsvWriter(OutputStream out) {
+        CSVWriter csvWriter = new CSVWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        csvWriter.writeNext(HEADER);
+        return csvWriter;
+    }
+
+    public void writeTestCase(CSVWriter csvWriter, TestCase tc) {
+        csvWriter.writeNext(new String[] {
+                tc.getId(),
+                tc.getTitle(),
+                tc.getDescription(),
+                String.join("; ", tc.getPreconditions()),
+                String.join("; ", tc.getSteps()),
+                tc.getExpectedOutput(),
+                tc.getSeverity() == null ? null : tc.getSeverity().getLabel(),
+                tc.getTags() == null ? "" : String.join(", ", tc.getTags())
+        });
     }
-} 
\ No newline at end of file
+}
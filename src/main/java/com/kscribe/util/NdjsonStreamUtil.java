@@ -0,0 +1,80 @@
+package com.kscribe.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.kscribe.model.Requirement;
+import com.kscribe.model.TestCase;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Incremental JSON reading and writing for the streaming endpoints. Requirements are read one at a
+ * time from either a JSON array or newline-delimited JSON, and test cases are written as one JSON
+ * object per line.
+ */
+@Component
+public class NdjsonStreamUtil {
+    private final ObjectReader requirementReader;
+    private final ObjectWriter testCaseWriter;
+    private final ObjectMapper objectMapper;
+
+    public NdjsonStreamUtil(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.requirementReader = objectMapper.readerFor(Requirement.class);
+        this.testCaseWriter = objectMapper.writerFor(TestCase.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Lazily parses requirements from a JSON array or from NDJSON. Only the first requirement is
+     * parsed up front, so a malformed body fails before any response bytes are written.
+     */
+    public Iterator<Requirement> readRequirements(InputStream in) throws IOException {
+        MappingIterator<Requirement> rest = requirementReader.readValues(in);
+        if (!rest.hasNextValue()) return Collections.emptyIterator();
+        Requirement first = rest.nextValue();
+        return new Iterator<>() {
+            private boolean firstPending = true;
+
+            @Override
+            public boolean hasNext() {
+                return firstPending || rest.hasNext();
+            }
+
+            @Override
+            public Requirement next() {
+                if (firstPending) {
+                    firstPending = false;
+                    return first;
+                }
+                return rest.next();
+            }
+        };
+    }
+
+    public JsonGenerator openGenerator(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        // Lines are terminated explicitly; Jackson's default space between root values would indent them
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+
+    public void writeTestCase(JsonGenerator generator, TestCase tc) {
+        try {
+            testCaseWriter.writeValue(generator, tc);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.kscribe.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionLimiterTest {
+    @Test
+    void limitsConcurrentRequests() {
+        AdmissionLimiter limiter = limiter(2, 1_000);
+        assertThat(limiter.tryAcquire(10)).isTrue();
+        assertThat(limiter.tryAcquire(10)).isTrue();
+        assertThat(limiter.tryAcquire(10)).isFalse();
+        limiter.release(10);
+        assertThat(limiter.tryAcquire(10)).isTrue();
+        assertThat(limiter.inFlightRequests()).isEqualTo(2);
+        assertThat(limiter.inFlightTokens()).isEqualTo(20);
+    }
+
+    @Test
+    void limitsTokensInFlight() {
+        AdmissionLimiter limiter = limiter(10, 100);
+        assertThat(limiter.tryAcquire(60)).isTrue();
+        assertThat(limiter.tryAcquire(40)).isTrue();
+        assertThat(limiter.tryAcquire(1)).isFalse();
+        limiter.release(40);
+        assertThat(limiter.tryAcquire(41)).isFalse();
+        assertThat(limiter.tryAcquire(40)).isTrue();
+        assertThat(limiter.inFlightTokens()).isEqualTo(100);
+    }
+
+    @Test
+    void admitsAnOversizedRequestWhenIdle() {
+        AdmissionLimiter limiter = limiter(10, 100);
+        assertThat(limiter.tryAcquire(500)).isTrue();
+        assertThat(limiter.tryAcquire(1)).isFalse();
+        limiter.release(500);
+        assertThat(limiter.inFlightRequests()).isZero();
+        assertThat(limiter.inFlightTokens()).isZero();
+        assertThat(limiter.tryAcquire(1)).isTrue();
+    }
+
+    @Test
+    void countsRejections() {
+        AdmissionLimiter limiter = limiter(1, 100);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        limiter.bindTo(registry);
+        limiter.tryAcquire(1);
+        limiter.tryAcquire(1);
+        limiter.tryAcquire(1);
+        assertThat(registry.get("kscribe.admission.rejected").functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("kscribe.admission.requests").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void defaultsToFourRequestsPerCpu() {
+        AdmissionLimiter limiter = new AdmissionLimiter(new AdmissionProperties());
+        int max = 4 * Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < max; i++) {
+            assertThat(limiter.tryAcquire(0)).isTrue();
+        }
+        assertThat(limiter.tryAcquire(0)).isFalse();
+    }
+
+    private static AdmissionLimiter limiter(int maxRequests, long maxTokens) {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setMaxConcurrentRequests(maxRequests);
+        properties.setMaxInFlightTokens(maxTokens);
+        return new AdmissionLimiter(properties);
+    }
+}
@@ -0,0 +1,157 @@
+package com.kscribe.columnar;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kscribe.model.Severity;
+import com.kscribe.model.TestCase;
+import com.kscribe.model.Text;
+import com.kscribe.model.TextList;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.fail;
+
+class ColumnarFormatTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void roundTripsEveryFieldAcrossBlocksAndDictionaryResets() throws IOException {
+        List<TestCase> testCases = testCases(50);
+        for (int level : new int[] {-1, 1, 9}) {
+            byte[] file = write(testCases, 7, level, 40);
+            assertThat(json(read(file))).as("compression level %d", level).isEqualTo(json(testCases));
+        }
+    }
+
+    @Test
+    void roundTripsAnEmptyFile() throws IOException {
+        assertThat(read(write(List.of(), 10, 1, 100))).isEmpty();
+    }
+
+    @Test
+    void keepsNullsInsideLists() throws IOException {
+        TestCase tc = new TestCase();
+        tc.setPreconditions(Arrays.asList("a", null, "b"));
+        tc.setTags(Arrays.asList(null, "x"));
+        TestCase read = read(write(List.of(tc), 10, -1, 100)).get(0);
+        assertThat(read.getPreconditions()).containsExactly("a", null, "b");
+        assertThat(read.getTags()).containsExactly(null, "x");
+        assertThat(read.getId()).isNull();
+        assertThat(read.getTitle()).isNull();
+        assertThat(read.getSteps()).isNull();
+    }
+
+    @Test
+    void writerRefusesBlocksOverTheLimit() throws IOException {
+        TestCase tc = new TestCase();
+        tc.setDescription("x".repeat(10_000));
+        ColumnarWriter writer = new ColumnarWriter(new ByteArrayOutputStream(), 10, -1, 100, 4096);
+        assertThatThrownBy(() -> writer.write(tc)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void readerRefusesBlocksOverItsLimit() throws IOException {
+        byte[] file = write(testCases(20), 20, -1, 1000);
+        assertThatThrownBy(() -> readAll(new ColumnarReader(new ByteArrayInputStream(file), 64)))
+                .isInstanceOf(UncheckedIOException.class);
+    }
+
+    @Test
+    void rejectsOtherFiles() {
+        assertThatThrownBy(() -> new ColumnarReader(new ByteArrayInputStream("id,title\n".getBytes())))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void everyTruncationFails() throws IOException {
+        for (int level : new int[] {-1, 1}) {
+            byte[] file = write(testCases(12), 5, level, 30);
+            for (int length = 0; length < file.length; length++) {
+                byte[] truncated = Arrays.copyOf(file, length);
+                assertThatThrownBy(() -> readAll(new ColumnarReader(new ByteArrayInputStream(truncated))))
+                        .as("level %d, %d of %d bytes", level, length, file.length)
+                        .isInstanceOfAny(IOException.class, UncheckedIOException.class);
+            }
+        }
+    }
+
+    @Test
+    void corruptBytesFailWithIoErrorsOnly() throws IOException {
+        Random random = new Random(42);
+        for (int level : new int[] {-1, 1}) {
+            byte[] file = write(testCases(12), 5, level, 30);
+            for (int i = 0; i < 5_000; i++) {
+                byte[] corrupt = file.clone();
+                for (int flips = 1 + random.nextInt(3); flips > 0; flips--) {
+                    corrupt[random.nextInt(corrupt.length)] = (byte) random.nextInt(256);
+                }
+                try {
+                    readAll(new ColumnarReader(new ByteArrayInputStream(corrupt)));
+                } catch (IOException | UncheckedIOException e) {
+                    // Refused, as expected; surviving the corruption is fine too
+                } catch (RuntimeException | OutOfMemoryError e) {
+                    fail("level " + level + ", corrupt file " + i + " failed with " + e, e);
+                }
+            }
+        }
+    }
+
+    private static List<TestCase> testCases(int n) {
+        List<TestCase> testCases = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            TestCase tc = new TestCase();
+            tc.setId("TC" + (i + 1));
+            String body = "the user enters an invalid email " + (i % 9) + " é中😀";
+            tc.setTitle(i % 2 == 0 ? Text.of("Negative: ", body) : Text.of(body));
+            tc.setDescription(i % 5 == 0 ? null : body);
+            tc.setPreconditions(i % 4 == 0 ? null : TextList.of(List.of(Text.of(body), Text.of("Field: ", "email"))));
+            tc.setSteps(i % 3 == 0 ? List.of() : TextList.of(Text.of("Step: ", "step " + i)));
+            tc.setExpectedOutput(Text.of("Expected result for: ", body));
+            tc.setSeverity(i % 6 == 0 ? null : Severity.values()[i % 3]);
+            tc.setTags(i % 7 == 0 ? null : List.of("negative", "edge-case", "tag" + (i % 4)));
+            if (i % 3 == 1) {
+                tc.setSourceRequirements(List.of(i, i + 1));
+                tc.setMergedIds(List.of("TC" + (100 + i)));
+            }
+            testCases.add(tc);
+        }
+        return testCases;
+    }
+
+    private static byte[] write(List<TestCase> testCases, int blockRows, int level, int maxDictionarySize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ColumnarWriter writer = new ColumnarWriter(out, blockRows, level, maxDictionarySize, ColumnarFormat.DEFAULT_MAX_BLOCK_SIZE)) {
+            for (TestCase tc : testCases) {
+                writer.write(tc);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static List<TestCase> read(byte[] file) throws IOException {
+        return readAll(new ColumnarReader(new ByteArrayInputStream(file)));
+    }
+
+    private static List<TestCase> readAll(ColumnarReader reader) throws IOException {
+        List<TestCase> testCases = new ArrayList<>();
+        try (reader) {
+            while (reader.hasNext()) {
+                testCases.add(reader.next());
+            }
+        }
+        return testCases;
+    }
+
+    private String json(List<TestCase> testCases) throws IOException {
+        return mapper.writeValueAsString(testCases);
+    }
+}
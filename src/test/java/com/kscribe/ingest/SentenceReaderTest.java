@@ -0,0 +1,107 @@
+package com.kscribe.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SentenceReaderTest {
+    @Test
+    void joinsTheLinesOfAParagraph() {
+        assertThat(read("The user logs in.\nThe dashboard\nis shown.\n\n\nA second paragraph", InputFormat.TEXT, 1024))
+                .containsExactly("The user logs in.", "The dashboard is shown.", "A second paragraph");
+    }
+
+    @Test
+    void readsMarkdownBlocksWithoutMarkup() {
+        String markdown = String.join("\r\n",
+                "﻿# Login",
+                "",
+                "The user **must** enter a [password](https://example.com/pw). It is `hidden`.",
+                "- Show an error",
+                "  if the password is wrong",
+                "2. Lock the account",
+                "> Admins can unlock it.",
+                "```",
+                "if (x) { not a requirement. }",
+                "```",
+                "---",
+                "| Field | Rule |",
+                "|-------|:----:|",
+                "| email | must be valid |",
+                "## Next");
+        assertThat(read(markdown, InputFormat.MARKDOWN, 1024)).containsExactly(
+                "The user must enter a password.",
+                "It is hidden.",
+                "Show an error if the password is wrong",
+                "Lock the account",
+                "Admins can unlock it.",
+                "Field ; Rule",
+                "email ; must be valid");
+    }
+
+    @Test
+    void treatsMarkdownAsPlainTextInTextMode() {
+        assertThat(read("# Title\n- item", InputFormat.TEXT, 1024)).containsExactly("# Title - item");
+    }
+
+    @Test
+    void longBlocksComeOutAsIfReadWhole() {
+        StringBuilder text = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String sentence = "Requirement " + i + " lets the user see é中😀 item " + i + ".";
+            expected.add(sentence);
+            text.append(sentence).append(i % 10 == 9 ? "\n" : " ");
+        }
+        assertThat(read(text.toString(), InputFormat.TEXT, 1024)).isEqualTo(expected);
+    }
+
+    @Test
+    void decodesCharactersSplitAcrossReads() {
+        String text = "Ünïcödé välüés 😀 ärë këpt.";
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        ReadableByteChannel trickle = new ReadableByteChannel() {
+            private final ReadableByteChannel in = Channels.newChannel(new java.io.ByteArrayInputStream(bytes));
+
+            @Override
+            public int read(ByteBuffer dst) throws java.io.IOException {
+                ByteBuffer one = ByteBuffer.allocate(Math.min(3, dst.remaining()));
+                int n = in.read(one);
+                one.flip();
+                dst.put(one);
+                return n;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        List<String> sentences = new ArrayList<>();
+        new SentenceReader(trickle, InputFormat.TEXT, 1024, SentenceReaderTest::sentences).forEachRemaining(sentences::add);
+        assertThat(sentences).containsExactly(text);
+    }
+
+    private static List<String> read(String text, InputFormat format, int chunkSize) {
+        ReadableByteChannel channel = Channels.newChannel(new java.io.ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+        List<String> sentences = new ArrayList<>();
+        new SentenceReader(channel, format, chunkSize, SentenceReaderTest::sentences).forEachRemaining(sentences::add);
+        return sentences;
+    }
+
+    private static List<String> sentences(String text) {
+        return Arrays.asList(text.trim().split("(?<=[.!?])\\s+"));
+    }
+}
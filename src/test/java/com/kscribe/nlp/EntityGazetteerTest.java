@@ -0,0 +1,90 @@
+package com.kscribe.nlp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class EntityGazetteerTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void prefersTheLongestPhrase() throws IOException {
+        EntityGazetteer gazetteer = gazetteer(
+                "role\tuser\tusers",
+                "field\tuser name\tusername",
+                "screen\tlogin page\tsign-in page",
+                "screen\tlogin");
+        assertThat(names(gazetteer.find("The User name and the username of users"))).containsExactly("field:user name", "role:user");
+        assertThat(names(gazetteer.find("Open the Sign-In page, not the login"))).containsExactly("screen:login page", "screen:login");
+        assertThat(names(gazetteer.find("the login page"))).containsExactly("screen:login page");
+    }
+
+    @Test
+    void matchesWholeWordsOnly() throws IOException {
+        EntityGazetteer gazetteer = gazetteer("role\tuser", "field\temail");
+        assertThat(gazetteer.find("superuser users e-mail emails")).isEmpty();
+        assertThat(names(gazetteer.find("USER, email."))).containsExactly("role:user", "field:email");
+    }
+
+    @Test
+    void reportsTokenSpans() throws IOException {
+        EntityGazetteer gazetteer = gazetteer("field\tphone number", "role\tadmin");
+        String[] tokens = {"The", "Admin", "sets", "a", "phone", "number", "for", "phone"};
+        List<String> matches = new ArrayList<>();
+        gazetteer.find(tokens, 0, tokens.length, (start, end, entity) -> matches.add(start + "-" + end + " " + entity));
+        assertThat(matches).containsExactly("1-2 role:admin", "4-6 field:phone number");
+        matches.clear();
+        gazetteer.find(tokens, 0, 5, (start, end, entity) -> matches.add(start + "-" + end + " " + entity));
+        assertThat(matches).containsExactly("1-2 role:admin");
+    }
+
+    @Test
+    void skipsCommentsAndBadLines() throws IOException {
+        EntityGazetteer gazetteer = gazetteer("# comment", "", "just-a-type", "Role\tGuest\tguests", "field\tuser\tguest");
+        assertThat(gazetteer.entities()).extracting(Entity::getTag, Entity::getIndex)
+                .containsExactly(tuple("guest", 0), tuple("user", 1));
+        // The first entity listing a phrase keeps it
+        assertThat(names(gazetteer.find("guest"))).containsExactly("role:guest");
+        assertThat(gazetteer.entities().get(0).getPrecondition().toString()).isEqualTo("Role: guest");
+    }
+
+    @Test
+    void isEmptyWhenDisabled() {
+        NlpProperties properties = new NlpProperties();
+        properties.getEntities().setEnabled(false);
+        EntityGazetteer gazetteer = new EntityGazetteer(properties, new DefaultResourceLoader());
+        assertThat(gazetteer.size()).isZero();
+        assertThat(gazetteer.find("user")).isEmpty();
+    }
+
+    @Test
+    void bundledDictionaryTellsUsernameFromUser() {
+        EntityGazetteer gazetteer = new EntityGazetteer(new NlpProperties(), new DefaultResourceLoader());
+        assertThat(names(gazetteer.find("The username of the end users"))).containsExactly("field:username", "role:user");
+    }
+
+    private EntityGazetteer gazetteer(String... lines) throws IOException {
+        Path file = dir.resolve("entities.tsv");
+        Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+        NlpProperties properties = new NlpProperties();
+        properties.getEntities().setDictionary(file.toUri().toString());
+        return new EntityGazetteer(properties, new DefaultResourceLoader());
+    }
+
+    private static List<String> names(List<Entity> entities) {
+        List<String> names = new ArrayList<>();
+        entities.forEach(e -> names.add(e.toString()));
+        return names;
+    }
+}
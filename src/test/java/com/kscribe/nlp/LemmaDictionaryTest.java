@@ -0,0 +1,138 @@
+package com.kscribe.nlp;
+
+import opennlp.tools.lemmatizer.DictionaryLemmatizer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class LemmaDictionaryTest {
+    private static final byte[] DICTIONARY = String.join("\n",
+            "users\tNNS\tuser",
+            "entered\tVBD\tenter",
+            "entered\tVBN\tenter",
+            "left\tVBD\tleave",
+            "left\tJJ\tleft",
+            "leaves\tNNS\tleaf#leave",
+            "leaves\tVBZ\tleave",
+            "was\tVBD\tbe",
+            "was\tVBD\tbe2",
+            "cafés\tNNS\tcafé",
+            "naïve\tJJ\tnaïve",
+            "σοφία\tNN\tσοφία",
+            "").getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void looksUpLikeDictionaryLemmatizer() throws IOException {
+        LemmaDictionary dictionary = LemmaDictionary.open(write(compile()));
+        assertThat(dictionary.size()).isEqualTo(11);
+        assertThat(dictionary.verify(DICTIONARY)).isZero();
+
+        DictionaryLemmatizer reference = new DictionaryLemmatizer(new ByteArrayInputStream(DICTIONARY));
+        String[] tokens = {"Users", "ENTERED", "left", "left", "leaves", "was", "Cafés", "unknown", "left"};
+        String[] tags = {"NNS", "VBD", "VBD", "JJ", "NNS", "VBD", "NNS", "NN", "NN"};
+        assertThat(dictionary.lemmatize(tokens, tags)).containsExactly(reference.lemmatize(tokens, tags));
+        assertThat(dictionary.lemmatize(Arrays.asList(tokens), Arrays.asList(tags)))
+                .isEqualTo(reference.lemmatize(Arrays.asList(tokens), Arrays.asList(tags)));
+        assertThat(dictionary.lemmatize("leaves", "NNS")).isEqualTo("leaf");
+        assertThat(dictionary.lemmatize(List.of("leaves"), List.of("NNS"))).containsExactly(List.of("leaf", "leave"));
+        // The later line of a repeated word/tag pair wins
+        assertThat(dictionary.lemmatize("was", "VBD")).isEqualTo("be2");
+        assertThat(dictionary.lemmatize("left", "NN")).isEqualTo("O");
+    }
+
+    @Test
+    void loadCompilesOnceIntoAPrivateDirectory() throws IOException {
+        Path snapshots = dir.resolve("snapshots");
+        assertThat(LemmaDictionary.load(DICTIONARY, snapshots).lemmatize("users", "NNS")).isEqualTo("user");
+        List<Path> files = list(snapshots);
+        assertThat(files).hasSize(1);
+        long modified = Files.getLastModifiedTime(files.get(0)).toMillis();
+        assertThat(LemmaDictionary.load(DICTIONARY, snapshots).lemmatize("entered", "VBN")).isEqualTo("enter");
+        assertThat(list(snapshots)).isEqualTo(files);
+        assertThat(Files.getLastModifiedTime(files.get(0)).toMillis()).isEqualTo(modified);
+        PosixFileAttributeView view = Files.getFileAttributeView(snapshots, PosixFileAttributeView.class);
+        if (view != null) assertThat(PosixFilePermissions.toString(view.readAttributes().permissions())).isEqualTo("rwx------");
+    }
+
+    @Test
+    void loadRecompilesADamagedSnapshot() throws IOException {
+        LemmaDictionary.load(DICTIONARY, dir);
+        Path snapshot = list(dir).get(0);
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length - 3] ^= 0x20;
+        Files.write(snapshot, bytes);
+        assertThat(LemmaDictionary.load(DICTIONARY, dir).lemmatize("left", "JJ")).isEqualTo("left");
+        assertThat(Files.readAllBytes(snapshot)).isEqualTo(compile());
+    }
+
+    @Test
+    void loadRefusesADirectoryOthersCanWrite() throws IOException {
+        assumeTrue(Files.getFileAttributeView(dir, PosixFileAttributeView.class) != null);
+        Files.setPosixFilePermissions(dir, PosixFilePermissions.fromString("rwxrwxrwx"));
+        assertThatThrownBy(() -> LemmaDictionary.load(DICTIONARY, dir))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("writable");
+        assertThat(list(dir)).isEmpty();
+    }
+
+    @Test
+    void everyChangedByteIsRefused() throws IOException {
+        byte[] snapshot = compile();
+        for (int i = 0; i < snapshot.length; i++) {
+            for (int bit = 0; bit < 8; bit++) {
+                byte[] corrupt = snapshot.clone();
+                corrupt[i] ^= (byte) (1 << bit);
+                Path file = write(corrupt);
+                assertThatThrownBy(() -> LemmaDictionary.open(file))
+                        .as("bit %d of byte %d", bit, i)
+                        .isInstanceOf(IOException.class);
+            }
+        }
+    }
+
+    @Test
+    void everyTruncationIsRefused() throws IOException {
+        byte[] snapshot = compile();
+        for (int length = 0; length < snapshot.length; length++) {
+            Path file = write(Arrays.copyOf(snapshot, length));
+            assertThatThrownBy(() -> LemmaDictionary.open(file))
+                    .as("%d of %d bytes", length, snapshot.length)
+                    .isInstanceOf(IOException.class);
+        }
+    }
+
+    private static byte[] compile() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LemmaDictionary.compile(new ByteArrayInputStream(DICTIONARY), out);
+        return out.toByteArray();
+    }
+
+    private Path write(byte[] bytes) throws IOException {
+        Path file = dir.resolve("snapshot.bin");
+        Files.write(file, bytes);
+        return file;
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.kscribe.rules;
+
+import com.kscribe.nlp.EntityGazetteer;
+import com.kscribe.nlp.NlpProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeywordRuleEngineTest {
+    private static final String[] WORDS = {"if ", "modif ", "then", "else", "not ", "must not", "should", "error",
+            "reset", "login", "security", "invalid", "empty", "Expired", "ERROR", "café", "CAFÉ", "shall", "  ", ",",
+            "the user", "registration", "cannot", "can't", "won't", "never", "Success", "warning", "access"};
+
+    private final KeywordRuleEngine engine = new KeywordRuleEngine(
+            rules(Map.of("cafe", List.of("café"), "security", List.of("encrypt"))), gazetteer(true));
+
+    @Test
+    void matchesLikeAPlainSubstringSearch() {
+        Random random = new Random(7);
+        for (int n = 0; n < 5_000; n++) {
+            StringBuilder clause = new StringBuilder();
+            for (int w = random.nextInt(12); w > 0; w--) {
+                clause.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            String text = clause.toString();
+            ClauseFeatures features = engine.match(text);
+            String lower = text.toLowerCase(Locale.ROOT);
+            for (Feature feature : Feature.values()) {
+                int expected = earliestEnding(lower, feature.getKeywords(), feature.isWordStart());
+                assertThat(features.has(feature)).as("%s in \"%s\"", feature, text).isEqualTo(expected != Integer.MAX_VALUE);
+                if (expected != Integer.MAX_VALUE) {
+                    int start = features.firstIndex(feature);
+                    assertThat(matchEndingAt(lower, feature.getKeywords(), start, expected))
+                            .as("%s at %d in \"%s\"", feature, start, text).isTrue();
+                }
+            }
+            assertThat(features.hasTag(engine.tagNames().indexOf("edge-case")))
+                    .isEqualTo(lower.contains("edge") || lower.contains("empty") || lower.contains("invalid") || lower.contains("expired"));
+            assertThat(features.hasTag(engine.tagNames().indexOf("cafe"))).isEqualTo(lower.contains("café"));
+        }
+    }
+
+    @Test
+    void conditionalOnlyMatchesIfAtTheStartOfAWord() {
+        assertThat(engine.match("modif x").has(Feature.IF)).isTrue();
+        assertThat(engine.match("modif x").has(Feature.CONDITIONAL)).isFalse();
+        assertThat(engine.match("x, if y").has(Feature.CONDITIONAL)).isTrue();
+        assertThat(engine.match("If y").firstIndex(Feature.CONDITIONAL)).isZero();
+    }
+
+    @Test
+    void configuredTagsExtendTheBuiltInOnes() {
+        assertThat(engine.tagNames()).containsExactly("security", "edge-case", "registration", "login", "reset", "cafe");
+        assertThat(engine.match("Encrypt the data").hasTag(0)).isTrue();
+        assertThat(engine.match("Visit the CAFÉ").hasTag(5)).isTrue();
+    }
+
+    @Test
+    void entityKeywordsAreRulesOnlyWithoutADictionary() {
+        KeywordRuleEngine withoutEntities = new KeywordRuleEngine(rules(Map.of()), gazetteer(false));
+        assertThat(withoutEntities.tagNames())
+                .containsExactly("security", "edge-case", "user", "email", "password", "registration", "login", "reset");
+        assertThat(withoutEntities.match("The username").hasTag(2)).isTrue();
+        assertThat(new KeywordRuleEngine(rules(Map.of()), gazetteer(true)).tagNames()).doesNotContain("user", "email", "password");
+    }
+
+    @Test
+    void tagOrderFollowsConfigurationThenRulesThenEntities() {
+        TagRegistry registry = new TagRegistry(rules(Map.of("cafe", List.of("café"))), engine, gazetteer(true));
+        assertThat(registry.names()).startsWith("negative", "conditional", "security", "edge-case",
+                "user", "email", "password", "registration", "login", "reset", "cafe", "admin");
+        assertThat(registry.names()).doesNotHaveDuplicates();
+    }
+
+    // End of the earliest-ending keyword occurrence, or MAX_VALUE
+    private static int earliestEnding(String text, String[] keywords, boolean wordStart) {
+        int best = Integer.MAX_VALUE;
+        for (String keyword : keywords) {
+            for (int i = text.indexOf(keyword); i >= 0; i = text.indexOf(keyword, i + 1)) {
+                if (wordStart && i > 0 && (Character.isLetterOrDigit(text.charAt(i - 1)) || text.charAt(i - 1) == '_')) continue;
+                best = Math.min(best, i + keyword.length());
+                break;
+            }
+        }
+        return best;
+    }
+
+    private static boolean matchEndingAt(String text, String[] keywords, int start, int end) {
+        for (String keyword : keywords) {
+            if (start >= 0 && start + keyword.length() == end && text.startsWith(keyword, start)) return true;
+        }
+        return false;
+    }
+
+    private static RuleProperties rules(Map<String, List<String>> tags) {
+        RuleProperties properties = new RuleProperties();
+        properties.getTags().putAll(tags);
+        return properties;
+    }
+
+    private static EntityGazetteer gazetteer(boolean enabled) {
+        NlpProperties properties = new NlpProperties();
+        properties.getEntities().setEnabled(enabled);
+        return new EntityGazetteer(properties, new DefaultResourceLoader());
+    }
+}
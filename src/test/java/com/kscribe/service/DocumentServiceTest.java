@@ -0,0 +1,82 @@
+package com.kscribe.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DocumentServiceTest {
+    @Test
+    void keepsPrefixSuffixAndMiddleMatches() {
+        assertThat(DocumentService.match(List.of("a", "b", "c", "d", "e"), List.of("a", "x", "c", "y", "e")))
+                .containsExactly(0, -1, 2, -1, 4);
+        assertThat(DocumentService.match(List.of("a", "b", "c"), List.of("c", "a", "b")))
+                .containsExactly(-1, 0, 1);
+        assertThat(DocumentService.match(List.of(), List.of("a"))).containsExactly(-1);
+        assertThat(DocumentService.match(List.of("a", "b"), List.of())).isEmpty();
+    }
+
+    @Test
+    void matchesAreALongestCommonSubsequence() {
+        Random random = new Random(11);
+        for (int n = 0; n < 2_000; n++) {
+            List<String> before = randomSentences(random);
+            List<String> after = randomSentences(random);
+            int[] matched = DocumentService.match(before, after);
+            int count = 0;
+            int last = -1;
+            for (int j = 0; j < matched.length; j++) {
+                if (matched[j] < 0) continue;
+                assertThat(matched[j]).isGreaterThan(last);
+                assertThat(before.get(matched[j])).isEqualTo(after.get(j));
+                last = matched[j];
+                count++;
+            }
+            assertThat(count).as("%s -> %s", before, after).isEqualTo(lcsLength(before, after));
+        }
+    }
+
+    @Test
+    void largeEditsFallBackToAnInOrderMatching() {
+        List<String> before = new ArrayList<>();
+        List<String> after = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            before.add("s" + i);
+            after.add("s" + (i % 2 == 0 ? i : 3_000 + i));
+        }
+        after.add(0, "new");
+        before.add("old");
+        int[] matched = DocumentService.match(before, after);
+        int last = -1;
+        for (int j = 0; j < matched.length; j++) {
+            if (matched[j] < 0) continue;
+            assertThat(matched[j]).isGreaterThan(last);
+            assertThat(before.get(matched[j])).isEqualTo(after.get(j));
+            last = matched[j];
+        }
+        assertThat(matched[1]).isEqualTo(0);
+        assertThat(matched[3_000 - 1]).isEqualTo(3_000 - 2);
+    }
+
+    private static List<String> randomSentences(Random random) {
+        List<String> sentences = new ArrayList<>();
+        for (int i = random.nextInt(12); i > 0; i--) {
+            sentences.add(String.valueOf((char) ('a' + random.nextInt(4))));
+        }
+        return sentences;
+    }
+
+    private static int lcsLength(List<String> a, List<String> b) {
+        int[][] lcs = new int[a.size() + 1][b.size() + 1];
+        for (int i = 1; i <= a.size(); i++) {
+            for (int j = 1; j <= b.size(); j++) {
+                lcs[i][j] = a.get(i - 1).equals(b.get(j - 1))
+                        ? lcs[i - 1][j - 1] + 1 : Math.max(lcs[i - 1][j], lcs[i][j - 1]);
+            }
+        }
+        return lcs[a.size()][b.size()];
+    }
+}
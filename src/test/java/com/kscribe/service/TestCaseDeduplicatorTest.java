@@ -0,0 +1,81 @@
+package com.kscribe.service;
+
+import com.kscribe.metrics.StageMetrics;
+import com.kscribe.model.DedupReport;
+import com.kscribe.model.Severity;
+import com.kscribe.model.TestCase;
+import com.kscribe.model.TestCaseResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestCaseDeduplicatorTest {
+    private final TestCaseDeduplicator deduplicator =
+            new TestCaseDeduplicator(new DedupProperties(), new StageMetrics(new SimpleMeterRegistry(), false));
+
+    @Test
+    void mergesDuplicatesAcrossRequirements() {
+        TestCaseResponse response = deduplicator.deduplicate(List.of(
+                List.of(testCase("TC1", "Step: enter the email and the password and submit the login form"),
+                        testCase("TC2", "Step: open the settings page")),
+                List.of(testCase("TC3", "Step: Enter the email, and the password and submit the login form!")),
+                List.of(testCase("TC4", "Step: enter the email and the password and submit the login form"))));
+        assertThat(response.getTestCases()).extracting(TestCase::getId).containsExactly("TC1", "TC2");
+        TestCase survivor = response.getTestCases().get(0);
+        assertThat(survivor.getSourceRequirements()).containsExactly(0, 1, 2);
+        assertThat(survivor.getMergedIds()).containsExactly("TC3", "TC4");
+        assertThat(response.getTestCases().get(1).getSourceRequirements()).containsExactly(0);
+        assertThat(response.getTestCases().get(1).getMergedIds()).isEmpty();
+        assertThat(response.getDedup()).isEqualTo(new DedupReport(4, 2, 2, 1));
+    }
+
+    @Test
+    void keepsTestCasesBelowTheThreshold() {
+        TestCaseResponse response = deduplicator.deduplicate(List.of(
+                List.of(testCase("TC1", "Step: enter the email and the password and submit the login form")),
+                List.of(testCase("TC2", "Step: enter the email and the password and submit the signup form")),
+                List.of(testCase("TC3", "Step: reset the password"))));
+        assertThat(response.getTestCases()).extracting(TestCase::getId).containsExactly("TC1", "TC2", "TC3");
+        assertThat(response.getDedup()).isEqualTo(new DedupReport(3, 3, 0, 0));
+    }
+
+    @Test
+    void stepLemmasCountAsTheirWords() {
+        TestCaseResponse response = deduplicator.deduplicate(List.of(
+                List.of(testCase("TC1", "Step: users:user logs:log in:in with:with their:their emails:email")),
+                List.of(testCase("TC2", "Step: user:user log:log in:in with:with their:their email:email"))));
+        assertThat(response.getTestCases()).hasSize(1);
+    }
+
+    @Test
+    void isDeterministic() {
+        List<String> ids = null;
+        for (int run = 0; run < 3; run++) {
+            List<List<TestCase>> groups = new ArrayList<>();
+            for (int r = 0; r < 200; r++) {
+                groups.add(List.of(testCase("TC" + r, "Step: the user opens page " + (r % 37) + " and sees the menu")));
+            }
+            List<String> kept = new ArrayList<>();
+            deduplicator.deduplicate(groups).getTestCases().forEach(tc -> kept.add(tc.getId()));
+            if (ids != null) assertThat(kept).isEqualTo(ids);
+            ids = kept;
+        }
+        assertThat(ids).hasSize(37);
+    }
+
+    private static TestCase testCase(String id, String step) {
+        TestCase tc = new TestCase();
+        tc.setId(id);
+        tc.setTitle("Title " + id);
+        tc.setPreconditions(List.of("System requirement: the user has an account"));
+        tc.setSteps(List.of(step));
+        tc.setExpectedOutput("Expected result for the step");
+        tc.setSeverity(Severity.MEDIUM);
+        tc.setTags(List.of());
+        return tc;
+    }
+}
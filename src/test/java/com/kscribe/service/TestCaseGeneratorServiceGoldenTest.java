@@ -0,0 +1,69 @@
+package com.kscribe.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kscribe.model.Requirement;
+import com.kscribe.model.TestCase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares generated test cases with {@code golden/baseline-testcases.json}, the output of the
+ * original generator for {@code golden/requirements.json}, without NLP models. The requirements
+ * have no conditionals, whose parsing was rewritten, and entities are off, since they add tags and
+ * preconditions the original did not have; everything else must come out exactly as it did.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "kscribe.browser.enabled=false",
+        "kscribe.cache.enabled=false",
+        "kscribe.nlp.entities.enabled=false"})
+class TestCaseGeneratorServiceGoldenTest {
+    @Autowired
+    private TestCaseGeneratorService generator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void matchesTheBaselineOutput() throws IOException {
+        List<Requirement> requirements = read("/golden/requirements.json", new TypeReference<>() { });
+        JsonNode expected = read("/golden/baseline-testcases.json", new TypeReference<>() { });
+        assertThat(objectMapper.writeValueAsString(generator.generateTestCases(requirements)))
+                .isEqualTo(expected.toString());
+    }
+
+    @Test
+    void parallelBatchesMatchSequentialGeneration() throws IOException {
+        List<Requirement> golden = read("/golden/requirements.json", new TypeReference<>() { });
+        List<Requirement> requirements = new ArrayList<>();
+        while (requirements.size() < 1000) {
+            requirements.addAll(golden);
+        }
+        List<TestCase> batch = generator.generateTestCases(requirements);
+        List<TestCase> sequential = new ArrayList<>();
+        for (Requirement requirement : requirements) {
+            sequential.addAll(generator.generateForRequirement(requirement));
+        }
+        assertThat(batch).hasSameSizeAs(sequential);
+        for (int i = 0; i < batch.size(); i++) {
+            assertThat(batch.get(i).getId()).isEqualTo("TC" + (i + 1));
+            batch.get(i).setId(sequential.get(i).getId());
+        }
+        assertThat(objectMapper.writeValueAsString(batch)).isEqualTo(objectMapper.writeValueAsString(sequential));
+    }
+
+    private <T> T read(String resource, TypeReference<T> type) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream(resource)) {
+            return objectMapper.readValue(in, type);
+        }
+    }
+}
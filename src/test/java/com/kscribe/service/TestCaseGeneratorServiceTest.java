@@ -0,0 +1,100 @@
+package com.kscribe.service;
+
+import com.kscribe.model.Requirement;
+import com.kscribe.model.Severity;
+import com.kscribe.model.TestCase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/** Generation in the default configuration without NLP models: entities and the conditional grammar. */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "kscribe.browser.enabled=false",
+        "kscribe.cache.enabled=false"})
+class TestCaseGeneratorServiceTest {
+    @Autowired
+    private TestCaseGeneratorService generator;
+
+    @Test
+    void tagsDictionaryEntitiesWithoutATokenizer() {
+        List<TestCase> testCases = generate("Users should be able to reset their password.");
+        assertThat(testCases).extracting(TestCase::getTags).containsExactly(
+                List.of("user", "password", "reset"),
+                List.of("negative", "user", "password", "reset"));
+        assertThat(testCases.get(0).getPreconditions()).containsExactly(
+                "System requirement: Users should be able to reset their password", "Role: user", "Field: password");
+    }
+
+    @Test
+    void prefersTheLongestEntity() {
+        assertThat(generate("The username must not be empty.").get(0).getTags())
+                .containsExactly("negative", "edge-case", "username");
+    }
+
+    @Test
+    void parsesElseIfChains() {
+        List<TestCase> testCases = generate(
+                "If the password is invalid, then show an error; else if the account is locked, then show a warning; else log the user in.");
+        assertThat(testCases)
+                .extracting(TestCase::getDescription, TestCase::getSteps, TestCase::getSeverity)
+                .containsExactly(
+                        tuple("the password is invalid", List.of("Step: show an error"), Severity.MEDIUM),
+                        tuple("the account is locked", List.of("Step: show a warning"), Severity.LOW),
+                        tuple("log the user in", List.of("Step: log the user in"), Severity.LOW));
+        assertThat(testCases).extracting(TestCase::getId).containsExactly("TC1", "TC2", "TC3");
+    }
+
+    @Test
+    void parsesWhenOtherwiseAndUnless() {
+        assertThat(generate("Show the dashboard when the user logs in; otherwise show the login page."))
+                .extracting(TestCase::getDescription, TestCase::getSteps)
+                .containsExactly(
+                        tuple("the user logs in", List.of("Step: Show the dashboard")),
+                        tuple("show the login page", List.of("Step: show the login page")));
+        assertThat(generate("Unless the token is expired, accept the request."))
+                .extracting(TestCase::getDescription, TestCase::getSteps)
+                .containsExactly(tuple("unless the token is expired", List.of("Step: accept the request")));
+    }
+
+    @Test
+    void nestedBranchesListTheOuterConditions() {
+        List<TestCase> testCases = generate(
+                "If the user is an admin, then if the user has a token, then show the settings page, else show the home page.");
+        assertThat(testCases).extracting(TestCase::getTitle).containsExactly("Show the settings page", "Show the home page");
+        assertThat(testCases.get(0).getPreconditions()).startsWith("the user is an admin", "the user has a token");
+        assertThat(testCases.get(1).getPreconditions()).startsWith("the user is an admin", "show the home page");
+    }
+
+    @Test
+    void branchKeywordTagsIncludeTheCondition() {
+        TestCase tc = generate("If the user enters an invalid email, show an error.").get(0);
+        assertThat(tc.getTitle()).isEqualTo("Error handling");
+        assertThat(tc.getExpectedOutput()).isEqualTo("Error message displayed");
+        assertThat(tc.getTags()).containsExactly("edge-case", "user", "email");
+    }
+
+    @Test
+    void streamingNumbersLikeTheBatch() {
+        List<Requirement> requirements = List.of(
+                new Requirement("Users can login with email and password."),
+                new Requirement("If the token is expired then reject the request else accept it."),
+                new Requirement("The session must time out after 30 minutes of inactivity."));
+        List<TestCase> streamed = new ArrayList<>();
+        Iterator<Requirement> input = requirements.iterator();
+        int count = generator.generateTestCases(input, streamed::addAll);
+        List<TestCase> batch = generator.generateTestCases(requirements);
+        assertThat(count).isEqualTo(batch.size());
+        assertThat(streamed).usingRecursiveFieldByFieldElementComparator().isEqualTo(batch);
+    }
+
+    private List<TestCase> generate(String text) {
+        return generator.generateTestCases(List.of(new Requirement(text)));
+    }
+}